@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a removal followed by an insertion, so that the size of the heap
+ * stays the same, for the binary heaps and {@link PriorityQueue}. Run with
+ * {@code -prof gc} to verify that the heaps do not allocate, i.e. that
+ * {@code gc.alloc.rate.norm} is zero.
+ *
+ * @author Matthias Fussenegger
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BinaryHeapBenchmark {
+
+    @Param({"PriorityQueue", "BinaryMinHeap", "BinaryMaxHeap", "BottomUpMinHeap"})
+    public String heap;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private Queue<Integer> _heap;
+
+    private Integer[] _values;
+
+    private int _next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (heap) {
+            case "PriorityQueue":
+                _heap = new PriorityQueue<>();
+                break;
+            case "BinaryMinHeap":
+                _heap = new BinaryMinHeap<>();
+                break;
+            case "BinaryMaxHeap":
+                _heap = new BinaryMaxHeap<>();
+                break;
+            case "BottomUpMinHeap":
+                _heap = new BottomUpMinHeap<>();
+                break;
+            default:
+                throw new IllegalArgumentException(heap);
+        }
+        Random rand = new Random(42);
+        _values = new Integer[1 << 16];
+        for (int i = 0; i < _values.length; ++i) {
+            _values[i] = rand.nextInt();
+        }
+        for (int i = 0; i < size; ++i) {
+            _heap.add(_values[i & (_values.length - 1)]);
+        }
+    }
+
+    @Benchmark
+    public Integer pollAdd() {
+        Integer element = _heap.poll();
+        _heap.add(_values[_next++ & (_values.length - 1)]);
+        return element;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link LongKeyMinHeap}, which caches the keys of its elements, with
+ * a {@link BinaryMinHeap} and a {@link PriorityQueue} that compare the
+ * elements using {@link Comparator#comparingLong}. The elements are tasks
+ * whose deadline is read through a getter. Far more tasks than fit into the
+ * caches are created and visited in random order, so that reading a key
+ * through a comparator usually misses the cache.
+ *
+ * @author Matthias Fussenegger
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KeyedHeapBenchmark {
+
+    /**
+     * The number of tasks, which occupy roughly 100 MB.
+     */
+    private static final int TASKS = 1 << 20;
+
+    /**
+     * A task with a deadline and some payload, which spreads the tasks in
+     * memory like typical application objects.
+     */
+    public static final class Task {
+
+        private final long _deadline;
+
+        private final long[] _payload = new long[8];
+
+        Task(long deadline) {
+            _deadline = deadline;
+        }
+
+        public long deadline() {
+            return _deadline;
+        }
+    }
+
+    @Param({"LongKeyMinHeap", "BinaryMinHeap", "PriorityQueue"})
+    public String heap;
+
+    @Param({"1024", "65536", "262144"})
+    public int size;
+
+    private Queue<Task> _heap;
+
+    private Task[] _tasks;
+
+    private int _next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Comparator<Task> byDeadline = Comparator.comparingLong(Task::deadline);
+        switch (heap) {
+            case "LongKeyMinHeap":
+                _heap = new LongKeyMinHeap<>(Task::deadline);
+                break;
+            case "BinaryMinHeap":
+                _heap = new BinaryMinHeap<>(byDeadline);
+                break;
+            case "PriorityQueue":
+                _heap = new PriorityQueue<>(byDeadline);
+                break;
+            default:
+                throw new IllegalArgumentException(heap);
+        }
+        Random rand = new Random(42);
+        List<Task> tasks = IntStream.range(0, TASKS)
+                .mapToObj(i -> new Task(rand.nextLong()))
+                .collect(Collectors.toList());
+        Collections.shuffle(tasks, rand); // visit them in random memory order
+        _tasks = tasks.toArray(new Task[0]);
+        for (int i = 0; i < size; ++i) {
+            _heap.add(_tasks[i]);
+        }
+        _next = size;
+    }
+
+    @Benchmark
+    public Task pollAdd() {
+        Task task = _heap.poll();
+        _heap.add(_tasks[_next++ & (TASKS - 1)]);
+        return task;
+    }
+}
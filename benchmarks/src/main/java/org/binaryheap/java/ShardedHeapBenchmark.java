@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures concurrent additions and removals of a {@link ShardedHeap}, whose
+ * shards publish their first element for readers without a lock. On Java 11
+ * and later this uses the release/acquire implementation of the multi-release
+ * JAR; {@link ShardedHeapJava8Benchmark} runs the same benchmark with the
+ * Java 8 implementation for comparison.
+ *
+ * @author Matthias Fussenegger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class ShardedHeapBenchmark {
+
+    @Param({"4"})
+    public int shards;
+
+    @Param({"65536"})
+    public int size;
+
+    private ShardedHeap<Integer> _heap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        _heap = new ShardedHeap<>(shards);
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < size; ++i) {
+            _heap.add(rand.nextInt());
+        }
+    }
+
+    @Benchmark
+    public Integer offerPoll() {
+        _heap.offer(ThreadLocalRandom.current().nextInt());
+        return _heap.poll();
+    }
+
+    @Benchmark
+    public Integer peek() {
+        return _heap.peek();
+    }
+}
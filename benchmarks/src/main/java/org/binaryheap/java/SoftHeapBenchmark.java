@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a removal followed by an insertion of a {@link SoftHeap} for
+ * several error rates, to be compared with {@link BinaryHeapBenchmark}. The
+ * rank errors are sampled in a separate run after each trial, since sampling
+ * takes linear time, and are printed to the output of the fork.
+ *
+ * @author Matthias Fussenegger
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SoftHeapBenchmark {
+
+    @Param({"0.5", "0.1", "0.01", "0.001"})
+    public double epsilon;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private SoftHeap<Integer> _heap;
+
+    private Integer[] _values;
+
+    private int _next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        _heap = new SoftHeap<>(epsilon);
+        Random rand = new Random(42);
+        _values = new Integer[1 << 16];
+        for (int i = 0; i < _values.length; ++i) {
+            _values[i] = rand.nextInt();
+        }
+        for (int i = 0; i < size; ++i) {
+            _heap.add(_values[i & (_values.length - 1)]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void sampleRankErrors() {
+        SoftHeap<Integer> heap = new SoftHeap<>(epsilon);
+        heap.setRankErrorSampling(64);
+        for (int i = 0; i < size; ++i) {
+            heap.add(_values[i & (_values.length - 1)]);
+        }
+        for (int i = 0; i < 16384; ++i) {
+            heap.poll();
+            heap.add(_values[(size + i) & (_values.length - 1)]);
+        }
+        System.out.println("epsilon=" + epsilon + ", size=" + size + ": "
+                + heap.rankErrorStatistics());
+    }
+
+    @Benchmark
+    public Integer pollAdd() {
+        Integer element = _heap.poll();
+        _heap.add(_values[_next++ & (_values.length - 1)]);
+        return element;
+    }
+}
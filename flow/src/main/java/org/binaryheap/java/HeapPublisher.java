@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes the elements removed from a {@link BinaryHeap} to
+ * {@link Flow.Subscriber}s. The publisher registers a {@link HeapListener} on
+ * the heap, so that every removed element is offered to each subscriber,
+ * regardless of the method that removed it.
+ * <p>
+ * Subscribers never receive more elements than they have requested. Elements
+ * removed while a subscriber has no outstanding demand are buffered for that
+ * subscriber, up to the capacity of its buffer. If a subscriber falls behind
+ * by more elements than that, its subscription is cancelled and an
+ * {@link IllegalStateException} is signalled to it. The thread modifying the
+ * heap is therefore never blocked by a slow subscriber.
+ * <p>
+ * Like the heap itself, the publisher must be created and closed by the thread
+ * modifying the heap. Subscribers may subscribe, request elements and cancel
+ * their subscriptions from any thread. Elements are delivered either by the
+ * thread removing them or by the thread requesting them, but never
+ * concurrently to the same subscriber.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class HeapPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    /**
+     * The heap whose removed elements are published.
+     */
+    private final BinaryHeap<T> _heap;
+
+    /**
+     * The maximum number of elements buffered per subscriber.
+     */
+    private final int _bufferCapacity;
+
+    /**
+     * The listener registered on the heap.
+     */
+    private final HeapListener<T> _listener = new HeapListener<T>() {
+        @Override
+        public void elementRemoved(T element) {
+            for (HeapSubscription subscription : _subscriptions) {
+                subscription.offer(element);
+            }
+        }
+    };
+
+    /**
+     * The subscriptions that have not been terminated yet.
+     */
+    private final List<HeapSubscription> _subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether this publisher has been closed.
+     */
+    private volatile boolean _closed = false;
+
+    /**
+     * Creates a publisher of the elements removed from the specified heap,
+     * which buffers up to {@link Flow#defaultBufferSize()} elements per
+     * subscriber.
+     *
+     * @param heap The heap whose removed elements are to be published.
+     */
+    public HeapPublisher(BinaryHeap<T> heap) {
+        this(heap, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Creates a publisher of the elements removed from the specified heap.
+     *
+     * @param heap The heap whose removed elements are to be published.
+     * @param bufferCapacity The maximum number of elements buffered for a
+     * subscriber that has not requested them yet.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public HeapPublisher(BinaryHeap<T> heap, int bufferCapacity) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        _heap = Objects.requireNonNull(heap);
+        _bufferCapacity = bufferCapacity;
+        heap.addListener(_listener);
+    }
+
+    /**
+     * Returns the number of subscribers whose subscription has not been
+     * terminated yet.
+     *
+     * @return The number of current subscribers.
+     */
+    public int getNumberOfSubscribers() {
+        return _subscriptions.size();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        HeapSubscription subscription = new HeapSubscription(subscriber);
+        _subscriptions.add(subscription);
+        subscription.start();
+        if (_closed) {
+            subscription.complete(); // closed while subscribing
+        }
+    }
+
+    /**
+     * Stops publishing removed elements. Each subscriber still receives its
+     * buffered elements as it requests them and is completed afterwards.
+     */
+    @Override
+    public void close() {
+        if (!_closed) {
+            _closed = true;
+            _heap.removeListener(_listener);
+            for (HeapSubscription subscription : _subscriptions) {
+                subscription.complete();
+            }
+        }
+    }
+
+    /**
+     * The subscription of a single subscriber, which buffers the elements that
+     * have not been requested yet. The signals are delivered by whichever
+     * thread gets hold of the emission first, the others only update the state.
+     */
+    private final class HeapSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> _subscriber;
+
+        /**
+         * The elements that have not been delivered yet.
+         */
+        private final ArrayDeque<T> _buffer = new ArrayDeque<>();
+
+        /**
+         * The number of requested elements that have not been delivered yet.
+         */
+        private long _demand = 0;
+
+        /**
+         * Whether a thread is delivering signals, which initially is the
+         * thread calling {@link Flow.Subscriber#onSubscribe}.
+         */
+        private boolean _emitting = true;
+
+        /**
+         * Whether no more signals are to be delivered.
+         */
+        private boolean _cancelled = false;
+
+        /**
+         * Whether the subscriber is to be completed once the buffer is empty.
+         */
+        private boolean _completed = false;
+
+        /**
+         * The error to be signalled to the subscriber or {@code null}.
+         */
+        private Throwable _error;
+
+        HeapSubscription(Flow.Subscriber<? super T> subscriber) {
+            _subscriber = Objects.requireNonNull(subscriber);
+        }
+
+        /**
+         * Signals this subscription to the subscriber and then delivers any
+         * signals that have accumulated meanwhile.
+         */
+        void start() {
+            try {
+                _subscriber.onSubscribe(this);
+            } finally {
+                emit();
+            }
+        }
+
+        /**
+         * Buffers the specified element and delivers it if it is requested.
+         *
+         * @param element The removed element.
+         */
+        void offer(T element) {
+            synchronized (this) {
+                if (_cancelled || _completed || _error != null) {
+                    return;
+                } else if (_buffer.size() < _bufferCapacity) {
+                    _buffer.add(element);
+                } else {
+                    _buffer.clear();
+                    _error = new IllegalStateException("Subscriber fell behind by more than "
+                            + _bufferCapacity + " elements");
+                }
+            }
+            drain();
+        }
+
+        /**
+         * Completes the subscriber once all buffered elements are delivered.
+         */
+        void complete() {
+            synchronized (this) {
+                _completed = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    if (_error == null) {
+                        _buffer.clear();
+                        _error = new IllegalArgumentException("Non-positive request: " + n);
+                    }
+                } else {
+                    _demand = _demand + n < 0 ? Long.MAX_VALUE : _demand + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                _cancelled = true;
+                _buffer.clear();
+            }
+            _subscriptions.remove(this);
+        }
+
+        /**
+         * Delivers the pending signals, unless another thread already does.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (_emitting) {
+                    return; // that thread will see the new state
+                }
+                _emitting = true;
+            }
+            emit();
+        }
+
+        /**
+         * Delivers signals until there are none left. Must only be called by
+         * the thread that has set {@link #_emitting}.
+         */
+        private void emit() {
+            for (;;) {
+                final T element;
+                final Throwable error;
+                synchronized (this) {
+                    error = _error;
+                    element = error == null && _demand > 0 ? _buffer.poll() : null;
+                    if (_cancelled || element == null && error == null
+                            && !(_completed && _buffer.isEmpty())) {
+                        _emitting = false;
+                        return;
+                    } else if (element != null) {
+                        --_demand;
+                    } else {
+                        _cancelled = true; // terminal signal
+                    }
+                }
+                if (element == null) {
+                    _subscriptions.remove(this);
+                    if (error != null) {
+                        _subscriber.onError(error);
+                    } else {
+                        _subscriber.onComplete();
+                    }
+                    return;
+                }
+                try {
+                    _subscriber.onNext(element);
+                } catch (RuntimeException ex) {
+                    cancel(); // the subscriber violated the specification
+                    throw ex;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class HeapPublisherTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public HeapPublisherTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * A subscriber that records all signals it receives.
+     */
+    private static final class RecordingSubscriber implements Flow.Subscriber<Integer> {
+
+        final List<Integer> _elements = Collections.synchronizedList(new ArrayList<>());
+
+        volatile Flow.Subscription _subscription;
+
+        volatile Throwable _error;
+
+        volatile boolean _completed = false;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            _subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            _elements.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            _error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            _completed = true;
+        }
+    }
+
+    /**
+     * Test of request method, of class HeapPublisher.
+     */
+    @Test
+    public void testRequest() {
+        System.out.println("HEAP PUBLISHER");
+        System.out.println("request");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        assertEquals(1, instance.getNumberOfSubscribers());
+        subscriber._subscription.request(2);
+        heap.add(4, 2, 5, 1, 3);
+        while (!heap.isEmpty()) {
+            heap.poll();
+        }
+        assertEquals(Arrays.asList(1, 2), subscriber._elements);
+        subscriber._subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber._elements);
+        heap.add(6);
+        heap.poll();
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), subscriber._elements);
+        assertNull(subscriber._error);
+        assertFalse(subscriber._completed);
+    }
+
+    /**
+     * Test of request method with a non-positive number, of class
+     * HeapPublisher.
+     */
+    @Test
+    public void testRequestNonPositive() {
+        System.out.println("requestNonPositive");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        subscriber._subscription.request(0);
+        assertTrue(subscriber._error instanceof IllegalArgumentException);
+        assertEquals(0, instance.getNumberOfSubscribers());
+    }
+
+    /**
+     * Test of removals other than poll, of class HeapPublisher.
+     */
+    @Test
+    public void testRemovals() {
+        System.out.println("removals");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        subscriber._subscription.request(Long.MAX_VALUE);
+        heap.add(5, 3, 7, 9, 4, 8);
+        heap.remove((Object) 7);
+        heap.removeIf(x -> x == 5);
+        heap.clear();
+        List<Integer> elements = new ArrayList<>(subscriber._elements);
+        assertEquals(Arrays.asList(7, 5), elements.subList(0, 2));
+        Collections.sort(elements);
+        assertEquals(Arrays.asList(3, 4, 5, 7, 8, 9), elements);
+    }
+
+    /**
+     * Test of a subscriber that falls behind, of class HeapPublisher.
+     */
+    @Test
+    public void testOverflow() {
+        System.out.println("overflow");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap, 4);
+        RecordingSubscriber slow = new RecordingSubscriber();
+        RecordingSubscriber fast = new RecordingSubscriber();
+        instance.subscribe(slow);
+        instance.subscribe(fast);
+        slow._subscription.request(1);
+        fast._subscription.request(Long.MAX_VALUE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            heap.add(i);
+        }
+        for (int i = 0; i < 5; ++i) {
+            heap.poll(); // does not block although slow falls behind
+        }
+        assertNull(slow._error);
+        heap.poll();
+        assertTrue(slow._error instanceof IllegalStateException);
+        assertEquals(Collections.singletonList(0), slow._elements);
+        assertEquals(1, instance.getNumberOfSubscribers());
+        while (!heap.isEmpty()) {
+            heap.poll();
+        }
+        assertEquals(HEAP_SIZE, fast._elements.size());
+        assertNull(fast._error);
+    }
+
+    /**
+     * Test of cancel method, of class HeapPublisher.
+     */
+    @Test
+    public void testCancel() {
+        System.out.println("cancel");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        subscriber._subscription.request(Long.MAX_VALUE);
+        heap.add(1, 2);
+        heap.poll();
+        subscriber._subscription.cancel();
+        heap.poll();
+        assertEquals(Collections.singletonList(1), subscriber._elements);
+        assertEquals(0, instance.getNumberOfSubscribers());
+        assertFalse(subscriber._completed);
+    }
+
+    /**
+     * Test of close method, of class HeapPublisher.
+     */
+    @Test
+    public void testClose() {
+        System.out.println("close");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        subscriber._subscription.request(1);
+        heap.add(1, 2, 3, 4);
+        heap.poll();
+        heap.poll();
+        instance.close();
+        heap.poll(); // no longer published
+        assertFalse(subscriber._completed); // one element is still buffered
+        subscriber._subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber._elements);
+        assertTrue(subscriber._completed);
+        assertEquals(0, instance.getNumberOfSubscribers());
+
+        RecordingSubscriber late = new RecordingSubscriber();
+        instance.subscribe(late);
+        assertTrue(late._completed);
+        assertTrue(late._elements.isEmpty());
+    }
+
+    /**
+     * Test of requests from another thread than the one removing elements, of
+     * class HeapPublisher.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testConcurrentRequests() throws InterruptedException {
+        System.out.println("concurrentRequests");
+        BinaryHeap<Integer> heap = new BinaryMinHeap<>();
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            heap.add(i * 7919 % HEAP_SIZE); // a permutation of the indices
+        }
+        HeapPublisher<Integer> instance = new HeapPublisher<>(heap, HEAP_SIZE);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        instance.subscribe(subscriber);
+        Thread requester = new Thread(() -> {
+            for (int i = 0; i < HEAP_SIZE; ++i) {
+                subscriber._subscription.request(1);
+            }
+        });
+        requester.start();
+        List<Integer> polled = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            polled.add(heap.poll());
+        }
+        requester.join();
+        assertEquals(polled, subscriber._elements);
+        assertNull(subscriber._error);
+    }
+
+}
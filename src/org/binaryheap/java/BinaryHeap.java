@@ -23,19 +23,35 @@
  */
 package org.binaryheap.java;
 
+import java.lang.reflect.Array;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * Abstract class that represents a binary heap implemented as an array.
+ * Abstract class that represents a binary heap implemented as an array. The
+ * heap implements the {@link java.util.Queue} interface, hence it can be
+ * passed to any code that expects a queue or a collection without having to
+ * convert it first. Neither the {@link Iterator} nor the {@link Spliterator}
+ * of this heap copy any elements, they both walk the underlying array directly
+ * and are fail-fast.
  *
  * @author Matthias Fussenegger
  * @param <T> Generic type parameter
  */
-public abstract class BinaryHeap<T> {
+public abstract class BinaryHeap<T> extends AbstractQueue<T> {
 
     /**
      * Allows 32 entries as first entry has to be {@code null} in this binary
@@ -53,6 +69,49 @@ public abstract class BinaryHeap<T> {
      */
     protected T[] _heap;
 
+    /**
+     * The number of times this heap has been structurally modified. Used by
+     * iterators and spliterators to detect concurrent modifications.
+     */
+    protected transient int _modCount = 0;
+
+    /**
+     * The insertion sequence of each element, stored in parallel to the heap.
+     * This array is only allocated if the heap is stable, i.e. if elements
+     * that compare equal are to be returned in the order of insertion.
+     */
+    protected long[] _seq;
+
+    /**
+     * The insertion sequence that will be assigned to the next element added
+     * to a stable heap.
+     */
+    protected long _nextSeq = 0;
+
+    /**
+     * The number of elements at the end of the heap that have been added but
+     * not yet been merged into the heap, i.e. the size of the insertion buffer.
+     */
+    protected int _pending = 0;
+
+    /**
+     * The number of elements that may be buffered before the insertion buffer
+     * is merged into the heap. Buffering is disabled if this is zero.
+     */
+    private int _bufferCapacity = 0;
+
+    /**
+     * The minimum number of buffered elements for which the heap is rebuilt
+     * as a whole instead of shifting up each buffered element.
+     */
+    private int _heapifyThreshold = Integer.MAX_VALUE;
+
+    /**
+     * The registered listeners or {@code null} if there are none, in which case
+     * no events are fired at all.
+     */
+    private transient HeapListener<? super T>[] _listeners;
+
     /**
      * The {@link Comparator} used for comparing the elements in the heap.
      */
@@ -113,6 +172,41 @@ public abstract class BinaryHeap<T> {
         _comp = comp;
     }
 
+    /**
+     * Initializes a new binary heap with the specified size. The size specified
+     * is the number of elements that can be stored in the heap. This means that
+     * the true size of the heap is the specified size plus one
+     * {@code size + 1}. If the heap is stable, elements which are equal
+     * according to their natural ordering are returned in FIFO order.
+     *
+     * @param size The size of the heap.
+     * @param stable True to break ties by order of insertion.
+     */
+    protected BinaryHeap(int size, boolean stable) {
+        this(size);
+        if (stable) {
+            _seq = new long[size + 1];
+        }
+    }
+
+    /**
+     * Initializes a new binary heap with the specified size. The size specified
+     * is the number of elements that can be stored in the heap. This means that
+     * the true size of the heap is the specified size plus one
+     * {@code size + 1}. If the heap is stable, elements which are equal
+     * according to the specified {@link Comparator} are returned in FIFO order.
+     *
+     * @param size The size of the heap.
+     * @param comp The {@link Comparator} used by the heap.
+     * @param stable True to break ties by order of insertion.
+     */
+    protected BinaryHeap(int size, Comparator<? super T> comp, boolean stable) {
+        this(size, comp);
+        if (stable) {
+            _seq = new long[size + 1];
+        }
+    }
+
     /**
      * Resizes the heap. This method is currently called by child classes only.
      *
@@ -124,17 +218,29 @@ public abstract class BinaryHeap<T> {
         if (newSize < size()) {
             return false;
         }
-        @SuppressWarnings("unchecked")
-        T[] newHeap = (T[]) new Object[newSize];
-
-        for (int i = 0; i <= _size; ++i) {
-            newHeap[i] = _heap[i];
+        _heap = Arrays.copyOf(_heap, newSize);
+        if (_seq != null) {
+            _seq = Arrays.copyOf(_seq, newSize);
         }
-        _heap = newHeap;
 
         return true;
     }
 
+    /**
+     * Moves the element at the specified position to another position in the
+     * heap. Subclasses that keep additional data in parallel to the heap have
+     * to override this method to move their data along with the element.
+     *
+     * @param from The current position of the element in the heap.
+     * @param to The new position of the element in the heap.
+     */
+    protected void move(int from, int to) {
+        _heap[to] = _heap[from];
+        if (_seq != null) {
+            _seq[to] = _seq[from];
+        }
+    }
+
     /**
      * Swaps two elements at the specified positions in the heap.
      *
@@ -145,6 +251,12 @@ public abstract class BinaryHeap<T> {
         T temp = _heap[j];
         _heap[j] = _heap[i];
         _heap[i] = temp;
+
+        if (_seq != null) {
+            long seq = _seq[j];
+            _seq[j] = _seq[i];
+            _seq[i] = seq;
+        }
     }
 
     /**
@@ -152,6 +264,7 @@ public abstract class BinaryHeap<T> {
      *
      * @return The number of elements currently stored in the heap.
      */
+    @Override
     public final int size() {
         return _size;
     }
@@ -161,16 +274,206 @@ public abstract class BinaryHeap<T> {
      *
      * @return True if the heap is empty, false otherwise.
      */
+    @Override
     public final boolean isEmpty() {
         return _size == 0;
     }
 
     /**
-     * Returns the first element of the heap without removing it.
+     * Checks whether this heap is stable, i.e. whether elements which compare
+     * equal are returned in the order they have been added.
      *
-     * @return The first element of the heap.
+     * @return True if the heap is stable, false otherwise.
+     */
+    public final boolean isStable() {
+        return _seq != null;
+    }
+
+    /**
+     * Registers a listener that is notified whenever the first element of this
+     * heap changes or an element is removed from this heap. The
+     * listener is called after the heap has been modified. While elements are
+     * buffered, see {@link #setInsertionBuffer(int, int)}, changes of the first
+     * element are reported when the buffer is merged into the heap. As long as
+     * no listener is registered, no events are created at all.
+     *
+     * @param listener The listener to be registered.
+     */
+    @SuppressWarnings("unchecked")
+    public final void addListener(HeapListener<? super T> listener) {
+        Objects.requireNonNull(listener);
+        if (_listeners == null) {
+            _listeners = (HeapListener<? super T>[]) new HeapListener<?>[]{listener};
+        } else {
+            _listeners = Arrays.copyOf(_listeners, _listeners.length + 1);
+            _listeners[_listeners.length - 1] = listener;
+        }
+    }
+
+    /**
+     * Unregisters a listener that has previously been registered.
+     *
+     * @param listener The listener to be unregistered.
+     * @return True if the listener has been registered, false otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public final boolean removeListener(HeapListener<? super T> listener) {
+        if (_listeners != null) {
+            for (int i = 0; i < _listeners.length; ++i) {
+                if (_listeners[i] == listener) {
+                    HeapListener<? super T>[] listeners
+                            = (HeapListener<? super T>[]) new HeapListener<?>[_listeners.length - 1];
+                    System.arraycopy(_listeners, 0, listeners, 0, i);
+                    System.arraycopy(_listeners, i + 1, listeners, i, listeners.length - i);
+                    _listeners = listeners.length > 0 ? listeners : null;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first element of the heap, not considering any buffered
+     * elements, or {@code null} if there is none.
+     *
+     * @return The first element of the heap without buffered elements.
      */
+    private T top() {
+        return _size > _pending ? _heap[1] : null;
+    }
+
+    /**
+     * Notifies all listeners that the first element has changed, unless the
+     * specified elements are the same.
+     *
+     * @param oldTop The previous first element or {@code null}.
+     * @param newTop The current first element or {@code null}.
+     */
+    private void fireTopChanged(T oldTop, T newTop) {
+        if (oldTop != newTop) {
+            for (HeapListener<? super T> listener : _listeners) {
+                listener.topChanged(oldTop, newTop);
+            }
+        }
+    }
+
+    /**
+     * Notifies all listeners that the specified element has been removed.
+     *
+     * @param element The element that has been removed.
+     */
+    private void fireElementRemoved(T element) {
+        for (HeapListener<? super T> listener : _listeners) {
+            listener.elementRemoved(element);
+        }
+    }
+
+    /**
+     * Configures the insertion buffer of this heap. If buffering is enabled,
+     * added elements are only appended to the end of the heap. The buffered
+     * elements are merged into the heap the next time the first element is
+     * requested, or as soon as the buffer is full. Buffering pays off if many
+     * elements are added in bursts without reading the heap in between.
+     *
+     * @param capacity The number of elements that may be buffered before the
+     * buffer is merged into the heap. Zero disables buffering and merges any
+     * buffered elements immediately.
+     * @param heapifyThreshold The minimum number of buffered elements for which
+     * the whole heap is rebuilt in linear time when merging. If less elements
+     * are buffered, each of them is shifted up separately. Use a low value for
+     * write-heavy and a high value for read-heavy phases.
+     * @throws IllegalArgumentException If capacity is negative or the heapify
+     * threshold is not positive.
+     */
+    public final void setInsertionBuffer(int capacity, int heapifyThreshold) {
+        if (capacity < 0 || heapifyThreshold < 1) {
+            throw new IllegalArgumentException();
+        }
+        _bufferCapacity = capacity;
+        _heapifyThreshold = heapifyThreshold;
+        if (_pending >= capacity) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the number of elements that may be buffered before the insertion
+     * buffer is merged into the heap.
+     *
+     * @return The capacity of the insertion buffer or zero if buffering is
+     * disabled.
+     */
+    public final int getInsertionBufferCapacity() {
+        return _bufferCapacity;
+    }
+
+    /**
+     * Returns the minimum number of buffered elements for which the whole heap
+     * is rebuilt when merging the insertion buffer.
+     *
+     * @return The heapify threshold of the insertion buffer.
+     */
+    public final int getHeapifyThreshold() {
+        return _heapifyThreshold;
+    }
+
+    /**
+     * Merges all elements of the insertion buffer into the heap. This is done
+     * automatically when needed, but may be called explicitly to pay the cost
+     * at a convenient time, e.g. at the end of a write-heavy phase.
+     */
+    public final void flush() {
+        if (_pending > 0) {
+            final T oldTop = _listeners != null ? top() : null;
+            if (_pending >= _heapifyThreshold) {
+                heapify();
+            } else {
+                final int size = _size;
+                _size -= _pending;
+                while (_size < size) {
+                    T element = _heap[_size + 1];
+                    if (_comp != null) {
+                        siftUpUsingComparator(element);
+                    } else {
+                        siftUpComparable(element);
+                    }
+                    ++_size;
+                }
+            }
+            _pending = 0;
+            ++_modCount;
+            if (_listeners != null) {
+                fireTopChanged(oldTop, _heap[1]);
+            }
+        }
+    }
+
+    /**
+     * Restores the heap properties of the whole heap in linear time by
+     * shifting down all elements that are not leaves, starting with the last
+     * one. Subclasses that keep additional data in parallel to the heap may
+     * override this method to prepare the data of buffered elements first.
+     */
+    protected void heapify() {
+        for (int i = _size / 2; i >= 1; --i) {
+            if (_comp != null) {
+                siftDownUsingComparator(i);
+            } else {
+                siftDownComparable(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the first element of the heap without removing it. Any buffered
+     * elements are merged into the heap first.
+     *
+     * @return The first element of the heap or {@code null} if heap is empty.
+     */
+    @Override
     public final T peek() {
+        flush();
         return !isEmpty() ? _heap[1] : null;
     }
 
@@ -178,65 +481,208 @@ public abstract class BinaryHeap<T> {
      * Adds an element to the heap.
      *
      * @param element The element to be added.
+     * @return Always true as the heap grows if it is full.
      */
-    public final void add(T element) {
+    @Override
+    public final boolean add(T element) {
         if (element == null) {
             throw new NullPointerException();
-        } else if (isEmpty()) {
-            _heap[1] = element;
+        } else if (_size + 1 >= _heap.length) {
+            resize(_heap.length * 2);
+        }
+        if (_seq != null) {
+            _seq[_size + 1] = _nextSeq++;
+        }
+        final T oldTop = _listeners != null ? top() : null;
+        if (_bufferCapacity > 0) {
+            _heap[_size + 1] = element;
+            ++_pending;
+        } else if (_comp != null) {
+            siftUpUsingComparator(element);
         } else {
-            if (_heap[_heap.length - 1] != null) {
-                resize(_heap.length * 2);
-            }
-            if (_comp != null) {
-                siftUpUsingComparator(element);
-            } else {
-                siftUpComparable(element);
-            }
+            siftUpComparable(element);
         }
         ++_size;
+        ++_modCount;
+        if (_pending > 0 && _pending >= _bufferCapacity) {
+            flush();
+        } else if (_listeners != null && _pending == 0) {
+            fireTopChanged(oldTop, _heap[1]);
+        }
+        return true;
     }
 
     /**
-     * Adds multiple elements to the heap.
+     * Adds an element to the heap. This is the same as {@link #add(Object)}.
+     *
+     * @param element The element to be added.
+     * @return Always true as the heap grows if it is full.
+     */
+    @Override
+    public final boolean offer(T element) {
+        return add(element);
+    }
+
+    /**
+     * Adds multiple elements to the heap. Note that each call of this method
+     * allocates an array for the elements, use
+     * {@link #addAll(Object[], int, int)} to add the elements of an existing
+     * array instead.
      *
      * @param elements The elements to be added.
      */
     @SafeVarargs
+    @SuppressWarnings("varargs") // the array is only read
     public final void add(T... elements) {
-        for (T element : elements) {
-            add(element);
+        addAll(elements, 0, elements.length);
+    }
+
+    /**
+     * Adds a range of elements of the specified array to the heap. The heap is
+     * resized at most once.
+     *
+     * @param elements The array containing the elements to be added.
+     * @param offset The index of the first element to be added.
+     * @param length The number of elements to be added.
+     * @throws IndexOutOfBoundsException If the range exceeds the array.
+     */
+    public final void addAll(T[] elements, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > elements.length - length) {
+            throw new IndexOutOfBoundsException();
+        } else if (_size + length >= _heap.length) {
+            resize(Math.max(_heap.length * 2, _size + length + 1));
+        }
+        for (int i = offset; i < offset + length; ++i) {
+            add(elements[i]);
         }
     }
 
     /**
-     * Removes and returns the first element of the heap.
+     * Removes and returns the first element of the heap. Any buffered elements
+     * are merged into the heap first.
      *
      * @return The first element of the heap or {@code null} if heap is empty.
      */
-    public final T remove() {
+    @Override
+    public final T poll() {
+        flush();
         if (isEmpty()) {
             return null;
         }
-        T element = _heap[_size]; // right outermost leaf
         T topValue = _heap[1]; // the result to be returned
-        _heap[1] = element;
+        move(_size, 1); // right outermost leaf
+        _heap[_size] = null; // clear reference
+        --_size;
 
         if (_comp != null) {
-            siftDownUsingComparator();
+            siftDownUsingComparator(1);
         } else {
-            siftDownComparable();
+            siftDownComparable(1);
         }
-        _heap[_size] = null; // clear reference
-        --_size;
+        ++_modCount;
 
+        if (_listeners != null) {
+            fireElementRemoved(topValue);
+            fireTopChanged(topValue, top());
+        }
         return topValue;
     }
 
+    /**
+     * Removes and returns the first element of the heap. This method differs
+     * from {@link #poll()} only in that it throws an exception if this heap is
+     * empty.
+     *
+     * @return The first element of the heap.
+     * @throws NoSuchElementException If this heap is empty.
+     */
+    @Override
+    public final T remove() {
+        T element = poll();
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this heap, if
+     * it is present. The element is found using a linear search, but removing
+     * it only takes logarithmic time.
+     *
+     * @param o The element to be removed.
+     * @return True if the heap contained the specified element.
+     */
+    @Override
+    public final boolean remove(Object o) {
+        final int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes the element at the specified position. The last element of the
+     * ordered part of the heap takes its place and is shifted down or up, the
+     * last buffered element, if any, fills the gap at the end of the ordered
+     * part. Buffered elements are not ordered, so removing one of them just
+     * moves the last element of the heap to its position.
+     *
+     * @param index The position of the element to be removed.
+     * @return The element that has been moved from behind the specified
+     * position to a position before it, or {@code null} if no such element
+     * exists. This allows iterators to return that element nonetheless.
+     */
+    private T removeAt(int index) {
+        final T oldTop = _listeners != null ? top() : null;
+        final T removed = _heap[index];
+        final int size = _size;
+        final int ordered = _size - _pending;
+        T movedUp = null;
+        if (index > ordered) {
+            move(size, index);
+            --_pending;
+        } else {
+            if (index != ordered) {
+                move(ordered, index);
+            }
+            if (_pending > 0) {
+                move(size, ordered);
+            }
+            if (index != ordered) {
+                final T moved = _heap[index];
+                _size = ordered - 1; // the ordered part without the gap
+                if (_comp != null) {
+                    siftDownUsingComparator(index);
+                } else {
+                    siftDownComparable(index);
+                }
+                if (_heap[index] == moved) {
+                    siftUpFrom(index);
+                    if (_heap[index] != moved) {
+                        movedUp = moved;
+                    }
+                }
+            }
+        }
+        _heap[size] = null; // clear reference
+        _size = size - 1;
+        ++_modCount;
+
+        if (_listeners != null) {
+            fireElementRemoved(removed);
+            fireTopChanged(oldTop, top());
+        }
+        return movedUp;
+    }
+
     /**
      * Shifts an element up after adding it to the heap according to its natural
      * ordering. A {@link NullPointerException} is thrown if the element to be
-     * inserted is {@code null}.
+     * inserted is {@code null}. If the heap is stable, the insertion sequence of
+     * the element has already been stored at position {@code size() + 1}.
      *
      * @param element The element to be shifted up
      */
@@ -245,25 +691,52 @@ public abstract class BinaryHeap<T> {
     /**
      * Shifts an element up after adding it to the heap using the
      * {@link Comparator} of this heap. A {@link NullPointerException} is thrown
-     * if the element to be inserted is {@code null}.
+     * if the element to be inserted is {@code null}. If the heap is stable, the
+     * insertion sequence of the element has already been stored at position
+     * {@code size() + 1}.
      *
      * @param element The element to be shifted up
      */
     protected abstract void siftUpUsingComparator(T element);
 
     /**
-     * Shifts elements down after removing the first element using the natural
+     * Shifts the element at the specified position up, e.g. after it has been
+     * moved there to fill a gap. The element is shifted up as if it has just
+     * been added to a heap ending before the specified position, so that its
+     * insertion sequence is taken from that position if the heap is stable.
+     * Subclasses may override this to reuse data cached for the element.
+     *
+     * @param index The position of the element to be shifted up.
+     */
+    protected void siftUpFrom(int index) {
+        final int size = _size;
+        _size = index - 1;
+        if (_comp != null) {
+            siftUpUsingComparator(_heap[index]);
+        } else {
+            siftUpComparable(_heap[index]);
+        }
+        _size = size;
+    }
+
+    /**
+     * Shifts the element at the specified position down using the natural
      * ordering of the elements in the heap. This is necessary to restore the
-     * heap properties.
+     * heap properties after removing the first element or when rebuilding the
+     * heap.
+     *
+     * @param index The position of the element to be shifted down.
      */
-    protected abstract void siftDownComparable();
+    protected abstract void siftDownComparable(int index);
 
     /**
-     * Shifts elements down after removing the first element using the
+     * Shifts the element at the specified position down using the
      * {@link Comparator} of this heap. This is necessary to restore the heap
-     * properties.
+     * properties after removing the first element or when rebuilding the heap.
+     *
+     * @param index The position of the element to be shifted down.
      */
-    protected abstract void siftDownUsingComparator();
+    protected abstract void siftDownUsingComparator(int index);
 
     /**
      * Returns the {@link Comparator} used to order the elements of this heap,
@@ -285,8 +758,9 @@ public abstract class BinaryHeap<T> {
      * @param o The element to be found in this heap.
      * @return True if element exists, false otherwise.
      */
+    @Override
     public final boolean contains(Object o) {
-        for (int i = 1; i < _size; ++i) {
+        for (int i = 1; i <= _size; ++i) {
             if (_heap[i].equals(o)) {
                 return true;
             }
@@ -304,7 +778,7 @@ public abstract class BinaryHeap<T> {
      */
     public final int indexOf(Object o) {
         if (o != null) {
-            for (int i = 1; i < _size; ++i) {
+            for (int i = 1; i <= _size; ++i) {
                 if (_heap[i].equals(o)) {
                     return i;
                 }
@@ -317,13 +791,78 @@ public abstract class BinaryHeap<T> {
      * Removes all elements in this heap. The heap will be empty after this call
      * returns. The size of the heap will not be affected by this operation.
      */
+    @Override
     public final void clear() {
         if (!isEmpty()) {
-            for (int i = 1; i < _size; ++i) {
+            final T oldTop = _listeners != null ? top() : null;
+            final T[] removed = _listeners != null
+                    ? Arrays.copyOfRange(_heap, 1, _size + 1) : null;
+            for (int i = 1; i <= _size; ++i) {
                 _heap[i] = null;
             }
             _size = 0;
+            _pending = 0;
+            ++_modCount;
+            if (_listeners != null) {
+                for (T element : removed) {
+                    fireElementRemoved(element);
+                }
+                fireTopChanged(oldTop, null);
+            }
+        }
+    }
+
+    /**
+     * Removes all elements of this heap that satisfy the specified predicate.
+     * The remaining elements are compacted and the heap is rebuilt in linear
+     * time, which is much faster than removing the elements one by one.
+     *
+     * @param filter The predicate which returns true for elements to be
+     * removed.
+     * @return True if any elements have been removed.
+     */
+    @Override
+    public final boolean removeIf(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        flush();
+        BitSet removed = null;
+        for (int i = 1; i <= _size; ++i) {
+            if (filter.test(_heap[i])) {
+                if (removed == null) {
+                    removed = new BitSet(_size + 1);
+                }
+                removed.set(i);
+            }
+        }
+        if (removed == null) {
+            return false;
         }
+        final T oldTop = _listeners != null ? top() : null;
+        final List<T> removedElements = _listeners != null
+                ? new ArrayList<>(removed.cardinality()) : null;
+        int kept = 0;
+        for (int i = 1; i <= _size; ++i) {
+            if (!removed.get(i)) {
+                if (++kept != i) {
+                    move(i, kept);
+                }
+            } else if (removedElements != null) {
+                removedElements.add(_heap[i]);
+            }
+        }
+        for (int i = kept + 1; i <= _size; ++i) {
+            _heap[i] = null; // clear reference
+        }
+        _size = kept;
+        heapify();
+        ++_modCount;
+        if (_listeners != null) {
+            for (T element : removedElements) {
+                fireElementRemoved(element);
+            }
+            fireTopChanged(oldTop, top());
+        }
+        return true;
     }
 
     /**
@@ -331,14 +870,87 @@ public abstract class BinaryHeap<T> {
      *
      * @return An array consisting of all the elements stored in the heap.
      */
+    @Override
     public final Object[] toArray() {
         Object[] elements = new Object[_size];
-        for (int i = 1; i <= _size; ++i) {
-            elements[i - 1] = _heap[i];
-        }
+        System.arraycopy(_heap, 1, elements, 0, _size);
         return elements;
     }
 
+    /**
+     * Returns an array consisting of all the elements stored in the heap. If
+     * the elements fit into the specified array, it is filled and returned
+     * without allocating a new one. If the array has more room than needed,
+     * the position following the last element is set to {@code null}.
+     *
+     * @param <E> The component type of the array.
+     * @param dest The array into which the elements are stored if it is big
+     * enough, otherwise a new array of the same type is allocated.
+     * @return An array consisting of all the elements stored in the heap.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <E> E[] toArray(E[] dest) {
+        if (dest.length < _size) {
+            dest = (E[]) Array.newInstance(dest.getClass().getComponentType(), _size);
+        }
+        System.arraycopy(_heap, 1, dest, 0, _size);
+        if (dest.length > _size) {
+            dest[_size] = null;
+        }
+        return dest;
+    }
+
+    /**
+     * Removes all elements of the heap and adds them to the specified
+     * collection in the order in which they would have been removed.
+     *
+     * @param dest The collection to which the elements are added.
+     * @return The number of elements transferred.
+     * @throws IllegalArgumentException If the collection is this heap.
+     */
+    public final int drainTo(Collection<? super T> dest) {
+        return drainTo(dest, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the specified number of elements of the heap and adds
+     * them to the specified collection in the order in which they would have
+     * been removed.
+     *
+     * @param dest The collection to which the elements are added.
+     * @param maxElements The maximum number of elements to be transferred.
+     * @return The number of elements transferred.
+     * @throws IllegalArgumentException If the collection is this heap.
+     */
+    public final int drainTo(Collection<? super T> dest, int maxElements) {
+        if (dest == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = 0;
+        while (count < maxElements && !isEmpty()) {
+            dest.add(poll());
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Removes as many elements of the heap as fit into the specified array and
+     * stores them in the order in which they would have been removed. This
+     * allows to drain the heap into a reusable buffer without allocating.
+     *
+     * @param dest The array in which the elements are stored.
+     * @return The number of elements transferred.
+     */
+    public final int drainTo(T[] dest) {
+        int count = 0;
+        while (count < dest.length && !isEmpty()) {
+            dest[count++] = poll();
+        }
+        return count;
+    }
+
     /**
      * Returns a list consisting of all the elements stored in the heap.
      *
@@ -352,6 +964,31 @@ public abstract class BinaryHeap<T> {
         return elements;
     }
 
+    /**
+     * Returns an iterator over the elements in this heap. The iterator walks
+     * the underlying array directly, hence the elements are not returned in
+     * any particular order. The iterator is fail-fast and supports removal of
+     * elements.
+     *
+     * @return An iterator over the elements in this heap.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Returns a late-binding and fail-fast {@link Spliterator} over the
+     * elements in this heap. Like the iterator, it walks the underlying array
+     * directly and does not return the elements in any particular order.
+     *
+     * @return A {@link Spliterator} over the elements in this heap.
+     */
+    @Override
+    public final Spliterator<T> spliterator() {
+        return new HeapSpliterator(1, -1, 0);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
@@ -361,14 +998,181 @@ public abstract class BinaryHeap<T> {
         }
         @SuppressWarnings("unchecked")
         Object[] heap = ((BinaryHeap<Object>) obj).toArray();
-        return Arrays.equals(heap, _heap);
+        return Arrays.equals(heap, toArray());
     }
 
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 79 * hash + Arrays.deepHashCode(_heap);
+        hash = 79 * hash + Arrays.deepHashCode(toArray());
         return hash;
     }
 
+    /**
+     * Iterator that walks the underlying array of the heap.
+     */
+    private final class Itr implements Iterator<T> {
+
+        /**
+         * Index of the next element to be returned.
+         */
+        private int _cursor = 1;
+
+        /**
+         * Index of the element returned last or zero if it has been removed
+         * or has been taken from {@link #_forgetMeNot}.
+         */
+        private int _lastRet = 0;
+
+        /**
+         * Elements that have been moved before the cursor by a removal, which
+         * are returned after the array has been walked.
+         */
+        private ArrayDeque<T> _forgetMeNot;
+
+        /**
+         * The element returned last if it has been taken from
+         * {@link #_forgetMeNot}.
+         */
+        private T _lastRetElt;
+
+        /**
+         * The modification count this iterator expects the heap to have.
+         */
+        private int _expectedModCount = _modCount;
+
+        @Override
+        public boolean hasNext() {
+            return _cursor <= _size
+                    || (_forgetMeNot != null && !_forgetMeNot.isEmpty());
+        }
+
+        @Override
+        public T next() {
+            if (_expectedModCount != _modCount) {
+                throw new ConcurrentModificationException();
+            } else if (_cursor <= _size) {
+                _lastRet = _cursor++;
+                return _heap[_lastRet];
+            } else if (_forgetMeNot != null) {
+                _lastRet = 0;
+                _lastRetElt = _forgetMeNot.poll();
+                if (_lastRetElt != null) {
+                    return _lastRetElt;
+                }
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            if (_expectedModCount != _modCount) {
+                throw new ConcurrentModificationException();
+            } else if (_lastRet != 0) {
+                T moved = removeAt(_lastRet);
+                _lastRet = 0;
+                if (moved == null) {
+                    --_cursor; // visit the element that took its place
+                } else {
+                    if (_forgetMeNot == null) {
+                        _forgetMeNot = new ArrayDeque<>();
+                    }
+                    _forgetMeNot.add(moved);
+                }
+            } else if (_lastRetElt != null) {
+                for (int i = 1; i <= _size; ++i) {
+                    if (_heap[i] == _lastRetElt) {
+                        removeAt(i);
+                        break;
+                    }
+                }
+                _lastRetElt = null;
+            } else {
+                throw new IllegalStateException();
+            }
+            _expectedModCount = _modCount;
+        }
+    }
+
+    /**
+     * Spliterator that walks the underlying array of the heap.
+     */
+    private final class HeapSpliterator implements Spliterator<T> {
+
+        /**
+         * Index of the next element to be traversed.
+         */
+        private int _index;
+
+        /**
+         * One past the last index to be traversed or -1 until first use.
+         */
+        private int _fence;
+
+        /**
+         * The modification count this spliterator expects the heap to have.
+         */
+        private int _expectedModCount;
+
+        HeapSpliterator(int origin, int fence, int expectedModCount) {
+            _index = origin;
+            _fence = fence;
+            _expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if (_fence < 0) { // bind to the heap on first use
+                _expectedModCount = _modCount;
+                _fence = _size + 1;
+            }
+            return _fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int lo = _index, hi = getFence(), mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null
+                    : new HeapSpliterator(lo, _index = mid, _expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            if (_index < hi) {
+                T element = _heap[_index++];
+                action.accept(element);
+                if (_expectedModCount != _modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            T[] heap = _heap;
+            for (int i = _index; i < hi; ++i) {
+                action.accept(heap[i]);
+            }
+            _index = hi;
+            if (_expectedModCount != _modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - _index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
 }
@@ -85,9 +85,45 @@ public final class BinaryMaxHeap<T> extends BinaryHeap<T> implements Serializabl
         super(size, comp);
     }
 
+    /**
+     * Initializes a new binary maximum heap with the specified size. The size
+     * specified is the number of elements that can be stored in the heap. This
+     * means that the true size of the heap is the specified size plus one
+     * {@code size + 1}. In a maximum heap, the largest element is the root
+     * element. If the heap is stable, elements which are equal according to
+     * their natural ordering are returned in the order they have been added.
+     *
+     * @param size The size of the heap.
+     * @param stable True to break ties by order of insertion.
+     */
+    public BinaryMaxHeap(int size, boolean stable) {
+        super(size, stable);
+    }
+
+    /**
+     * Initializes a new binary maximum heap with the specified size. The size
+     * specified is the number of elements that can be stored in the heap. This
+     * means that the true size of the heap is the specified size plus one
+     * {@code size + 1}. In a maximum heap, the largest element is the root
+     * element. If the heap is stable, elements which are equal according to
+     * the specified {@link Comparator} are returned in the order they have been
+     * added.
+     *
+     * @param size The size of the heap.
+     * @param comp The {@link Comparator} used by the heap.
+     * @param stable True to break ties by order of insertion.
+     */
+    public BinaryMaxHeap(int size, Comparator<? super T> comp, boolean stable) {
+        super(size, comp, stable);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected final void siftUpComparable(T element) {
+        if (_seq != null) {
+            siftUpStable(element);
+            return;
+        }
         int i = _size + 1;
         while (i > 1 && ((Comparable<? super T>) element).compareTo(_heap[i / 2]) > 0) {
             _heap[i] = _heap[i / 2];
@@ -98,6 +134,10 @@ public final class BinaryMaxHeap<T> extends BinaryHeap<T> implements Serializabl
 
     @Override
     protected final void siftUpUsingComparator(T element) {
+        if (_seq != null) {
+            siftUpStable(element);
+            return;
+        }
         int i = _size + 1;
         while (i > 1 && _comp.compare(element, _heap[i / 2]) > 0) {
             _heap[i] = _heap[i / 2];
@@ -108,10 +148,14 @@ public final class BinaryMaxHeap<T> extends BinaryHeap<T> implements Serializabl
 
     @Override
     @SuppressWarnings("unchecked")
-    protected final void siftDownComparable() {
-        int parent = 1, child = parent * 2;
-        while (parent * 2 < _size) {
-            if (child + 1 < _size) {
+    protected final void siftDownComparable(int index) {
+        if (_seq != null) {
+            siftDownStable(index);
+            return;
+        }
+        int parent = index, child = parent * 2;
+        while (child <= _size) {
+            if (child < _size) {
                 if (((Comparable<? super T>) _heap[child + 1]).compareTo(_heap[child]) > 0) {
                     ++child; // right child is larger than left one
                 }
@@ -128,10 +172,14 @@ public final class BinaryMaxHeap<T> extends BinaryHeap<T> implements Serializabl
     }
 
     @Override
-    protected final void siftDownUsingComparator() {
-        int parent = 1, child = parent * 2;
-        while (parent * 2 < _size) {
-            if (child + 1 < _size) {
+    protected final void siftDownUsingComparator(int index) {
+        if (_seq != null) {
+            siftDownStable(index);
+            return;
+        }
+        int parent = index, child = parent * 2;
+        while (child <= _size) {
+            if (child < _size) {
                 if (_comp.compare(_heap[child + 1], _heap[child]) > 0) {
                     ++child; // right child is larger than left one
                 }
@@ -146,4 +194,66 @@ public final class BinaryMaxHeap<T> extends BinaryHeap<T> implements Serializabl
             }
         }
     }
+
+    /**
+     * Checks whether the first element has to be placed before the second one
+     * in this heap. Elements that are equal are ordered by their insertion
+     * sequence, which is what makes a stable heap return them in FIFO order.
+     *
+     * @param a The first element.
+     * @param seqA The insertion sequence of the first element.
+     * @param b The second element.
+     * @param seqB The insertion sequence of the second element.
+     * @return True if the first element precedes the second one.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean precedes(T a, long seqA, T b, long seqB) {
+        int result = _comp != null ? _comp.compare(a, b)
+                : ((Comparable<? super T>) a).compareTo(b);
+        return result > 0 || (result == 0 && seqA < seqB);
+    }
+
+    /**
+     * Shifts an element up after adding it to a stable heap. The insertion
+     * sequence is moved along with the element.
+     *
+     * @param element The element to be shifted up.
+     */
+    private void siftUpStable(T element) {
+        int i = _size + 1;
+        final long seq = _seq[i];
+        while (i > 1 && precedes(element, seq, _heap[i / 2], _seq[i / 2])) {
+            _heap[i] = _heap[i / 2];
+            _seq[i] = _seq[i / 2];
+            i = i / 2;
+        }
+        _heap[i] = element;
+        _seq[i] = seq;
+    }
+
+    /**
+     * Shifts the element at the specified position of a stable heap down. The
+     * insertion sequences are moved along with the elements.
+     *
+     * @param index The position of the element to be shifted down.
+     */
+    private void siftDownStable(int index) {
+        final T element = _heap[index];
+        final long seq = _seq[index];
+        int parent = index;
+        while (parent * 2 <= _size) {
+            int child = parent * 2;
+            if (child < _size && precedes(_heap[child + 1], _seq[child + 1], _heap[child], _seq[child])) {
+                ++child;
+            }
+            if (!precedes(_heap[child], _seq[child], element, seq)) {
+                break;
+            }
+            _heap[parent] = _heap[child];
+            _seq[parent] = _seq[child];
+            parent = child;
+        }
+        _heap[parent] = element;
+        _seq[parent] = seq;
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Extends BinaryHeap and offers functionality of a maximum priority queue that
+ * minimizes the number of comparisons, which pays off if comparing elements is
+ * expensive. Instead of comparing the shifted element with both children on
+ * each level, elements are shifted down bottom-up: the path along the largest
+ * children is followed down to a leaf first, which takes one comparison per
+ * level. As the elements on that path are sorted, the position of the shifted
+ * element is then found by a binary search on the path. Removing the first
+ * element thus takes about {@code log n + log log n} comparisons instead of
+ * {@code 2 log n}. The number of comparisons performed is counted and can be
+ * retrieved via {@link #comparisons()}.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class BottomUpMaxHeap<T> extends BinaryHeap<T> implements Serializable {
+
+    private static final long serialVersionUID = -1720094958613351043L;
+
+    /**
+     * The number of comparisons performed by this heap.
+     */
+    private long _comparisons = 0;
+
+    /**
+     * Initializes a binary maximum heap with default size, which allows 32
+     * elements to be stored. As the first element has to be {@code null}, the
+     * true size of the heap is 33. In a maximum heap, the largest element is
+     * the root element.
+     */
+    public BottomUpMaxHeap() {
+        super();
+    }
+
+    /**
+     * Initializes a new binary maximum heap with the specified size. The size
+     * specified is the number of elements that can be stored in the heap. This
+     * means that the true size of the heap is the specified size plus one
+     * {@code size + 1}. In a maximum heap, the largest element is the root
+     * element.
+     *
+     * @param size The size of the heap.
+     */
+    public BottomUpMaxHeap(int size) {
+        super(size);
+    }
+
+    /**
+     * Initializes a new binary maximum heap with default size, which allows 32
+     * elements to be stored. As the first element has to be {@code null}, the
+     * true size is 33. In a maximum heap, the largest element is the root
+     * element.
+     *
+     * @param comp The {@link Comparator} used by the heap.
+     */
+    public BottomUpMaxHeap(Comparator<? super T> comp) {
+        super(comp);
+    }
+
+    /**
+     * Initializes a new binary maximum heap with the specified size. The size
+     * specified is the number of elements that can be stored in the heap. This
+     * means that the true size of the heap is the specified size plus one
+     * {@code size + 1}. In a maximum heap, the largest element is the root
+     * element.
+     *
+     * @param size The size of the heap.
+     * @param comp The {@link Comparator} used by the heap.
+     */
+    public BottomUpMaxHeap(int size, Comparator<? super T> comp) {
+        super(size, comp);
+    }
+
+    /**
+     * Returns the number of comparisons this heap has performed so far.
+     *
+     * @return The number of comparisons performed.
+     */
+    public final long comparisons() {
+        return _comparisons;
+    }
+
+    /**
+     * Resets the number of comparisons performed to zero.
+     */
+    public final void resetComparisons() {
+        _comparisons = 0;
+    }
+
+    /**
+     * Checks whether the first element has to be placed before the second one
+     * in this heap and counts the comparison.
+     *
+     * @param a The first element.
+     * @param b The second element.
+     * @return True if the first element is larger than the second one.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean precedes(T a, T b) {
+        ++_comparisons;
+        return (_comp != null ? _comp.compare(a, b)
+                : ((Comparable<? super T>) a).compareTo(b)) > 0;
+    }
+
+    @Override
+    protected final void siftUpComparable(T element) {
+        siftUpUsingComparator(element);
+    }
+
+    @Override
+    protected final void siftUpUsingComparator(T element) {
+        int i = _size + 1;
+        while (i > 1 && precedes(element, _heap[i / 2])) {
+            _heap[i] = _heap[i / 2];
+            i = i / 2;
+        }
+        _heap[i] = element;
+    }
+
+    @Override
+    protected final void siftDownComparable(int index) {
+        siftDownUsingComparator(index);
+    }
+
+    @Override
+    protected final void siftDownUsingComparator(int index) {
+        final T element = _heap[index];
+        /*follow the largest children down to a leaf*/
+        int leaf = index, child;
+        while ((child = leaf * 2) <= _size) {
+            if (child < _size && precedes(_heap[child + 1], _heap[child])) {
+                ++child; // right child is larger than left one
+            }
+            leaf = child;
+        }
+        /*the node at level k of the path is leaf >> (depth - k)*/
+        final int depth = Integer.numberOfLeadingZeros(index)
+                - Integer.numberOfLeadingZeros(leaf);
+        int lo = 0, hi = depth; // deepest level to be shifted up
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (precedes(_heap[leaf >> (depth - mid)], element)) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        for (int level = 1; level <= lo; ++level) {
+            _heap[leaf >> (depth - level + 1)] = _heap[leaf >> (depth - level)];
+        }
+        _heap[leaf >> (depth - lo)] = element;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * A minimum priority queue for elements with a small, bounded range of integer
+ * priorities, e.g. a few hundred levels. Instead of a heap, each level has its
+ * own first-in-first-out ring buffer, and a bitmap marks the levels that are
+ * not empty. A second word marks the non-empty words of the bitmap, so that the
+ * first level is found with two {@link Long#numberOfTrailingZeros(long)} calls.
+ * Adding and removing elements therefore takes constant time, independent of
+ * the number of elements, while a {@link BinaryHeap} needs a logarithmic number
+ * of comparisons. Elements of the same level are removed in the order they have
+ * been added, i.e. the queue is stable.
+ * <p>
+ * The priority of an element is determined once, when it is added, and level
+ * zero is removed first. At most {@link #MAX_LEVELS} levels are supported.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class BucketQueue<T> extends AbstractQueue<T> {
+
+    /**
+     * The maximum number of priority levels.
+     */
+    public static final int MAX_LEVELS = Long.SIZE * Long.SIZE;
+
+    /**
+     * The initial capacity of the ring buffer of a level.
+     */
+    private static final int INITIAL_BUCKET_SIZE = 8;
+
+    /**
+     * The function which determines the priority level of an element.
+     */
+    private final ToIntFunction<? super T> _priority;
+
+    /**
+     * The ring buffers of the levels, which are allocated on first use. Their
+     * length is always a power of two.
+     */
+    private final Object[][] _buckets;
+
+    /**
+     * The position of the first element of each ring buffer.
+     */
+    private final int[] _heads;
+
+    /**
+     * The number of elements of each ring buffer.
+     */
+    private final int[] _counts;
+
+    /**
+     * One bit per level, which is set if the level is not empty.
+     */
+    private final long[] _bits;
+
+    /**
+     * One bit per word of {@link #_bits}, which is set if the word is not zero.
+     */
+    private long _summary = 0;
+
+    private int _size = 0;
+
+    private int _modCount = 0;
+
+    /**
+     * Initializes a new queue.
+     *
+     * @param levels The number of priority levels, between one and
+     * {@link #MAX_LEVELS}.
+     * @param priority The function which maps each element to its priority
+     * level, which has to be greater than or equal to zero and less than the
+     * number of levels.
+     */
+    public BucketQueue(int levels, ToIntFunction<? super T> priority) {
+        if (levels < 1 || levels > MAX_LEVELS) {
+            throw new IllegalArgumentException("levels must be in [1, " + MAX_LEVELS + "]");
+        }
+        _priority = Objects.requireNonNull(priority);
+        _buckets = new Object[levels][];
+        _heads = new int[levels];
+        _counts = new int[levels];
+        _bits = new long[(levels + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Returns the number of priority levels of this queue.
+     *
+     * @return The number of priority levels.
+     */
+    public int levels() {
+        return _buckets.length;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Adds an element to the queue.
+     *
+     * @param element The element to be added.
+     * @return Always true.
+     * @throws IllegalArgumentException If the priority of the element is out
+     * of range.
+     */
+    @Override
+    public boolean offer(T element) {
+        Objects.requireNonNull(element);
+        final int level = _priority.applyAsInt(element);
+        if (level < 0 || level >= _buckets.length) {
+            throw new IllegalArgumentException("Priority out of range: " + level);
+        }
+        Object[] bucket = _buckets[level];
+        final int count = _counts[level];
+        if (bucket == null) {
+            bucket = _buckets[level] = new Object[INITIAL_BUCKET_SIZE];
+        } else if (count == bucket.length) {
+            bucket = grow(level);
+        }
+        bucket[(_heads[level] + count) & (bucket.length - 1)] = element;
+        if (count == 0) {
+            final int word = level >>> 6;
+            _bits[word] |= 1L << level;
+            _summary |= 1L << word;
+        }
+        _counts[level] = count + 1;
+        ++_size;
+        ++_modCount;
+        return true;
+    }
+
+    /**
+     * Adds all of the specified elements to the queue.
+     *
+     * @param elements The elements to be added.
+     */
+    @SafeVarargs
+    public final void add(T... elements) {
+        for (T element : elements) {
+            offer(element);
+        }
+    }
+
+    /**
+     * Doubles the capacity of the ring buffer of the specified level and moves
+     * its elements to the beginning of the new buffer.
+     */
+    private Object[] grow(int level) {
+        final Object[] bucket = _buckets[level];
+        final Object[] grown = new Object[bucket.length * 2];
+        final int head = _heads[level];
+        System.arraycopy(bucket, head, grown, 0, bucket.length - head);
+        System.arraycopy(bucket, 0, grown, bucket.length - head, head);
+        _heads[level] = 0;
+        return _buckets[level] = grown;
+    }
+
+    /**
+     * Returns the first non-empty level or a negative value if the queue is
+     * empty.
+     */
+    private int first() {
+        if (_summary == 0) {
+            return -1;
+        }
+        final int word = Long.numberOfTrailingZeros(_summary);
+        return (word << 6) + Long.numberOfTrailingZeros(_bits[word]);
+    }
+
+    /**
+     * Returns the priority level of the first element of the queue.
+     *
+     * @return The priority level of the first element or a negative value if
+     * the queue is empty.
+     */
+    public int peekLevel() {
+        return first();
+    }
+
+    /**
+     * Returns the first element of the queue without removing it. This is the
+     * element that will be returned by the next call of {@link #poll()}.
+     *
+     * @return The first element of the queue or {@code null} if it is empty.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        final int level = first();
+        return level >= 0 ? (T) _buckets[level][_heads[level]] : null;
+    }
+
+    /**
+     * Removes and returns the first element of the queue, which is the element
+     * of the lowest level that has been added first.
+     *
+     * @return The first element of the queue or {@code null} if it is empty.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        final int level = first();
+        if (level < 0) {
+            return null;
+        }
+        final Object[] bucket = _buckets[level];
+        final int head = _heads[level];
+        final T element = (T) bucket[head];
+        bucket[head] = null;
+        _heads[level] = (head + 1) & (bucket.length - 1);
+        if (--_counts[level] == 0) {
+            _heads[level] = 0;
+            final int word = level >>> 6;
+            if ((_bits[word] &= ~(1L << level)) == 0) {
+                _summary &= ~(1L << word);
+            }
+        }
+        --_size;
+        ++_modCount;
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        for (int level = first(); level >= 0; level = first()) {
+            final Object[] bucket = _buckets[level];
+            final int mask = bucket.length - 1;
+            for (int i = 0; i < _counts[level]; ++i) {
+                bucket[(_heads[level] + i) & mask] = null;
+            }
+            _heads[level] = 0;
+            _counts[level] = 0;
+            final int word = level >>> 6;
+            if ((_bits[word] &= ~(1L << level)) == 0) {
+                _summary &= ~(1L << word);
+            }
+        }
+        _size = 0;
+        ++_modCount;
+    }
+
+    /**
+     * Removes all elements of the queue and adds them to the specified
+     * collection in the order in which they would have been removed.
+     *
+     * @param dest The collection to which the elements are added.
+     * @return The number of elements transferred.
+     * @throws IllegalArgumentException If the collection is this queue.
+     */
+    public int drainTo(Collection<? super T> dest) {
+        return drainTo(dest, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the specified number of elements of the queue and adds
+     * them to the specified collection in the order in which they would have
+     * been removed.
+     *
+     * @param dest The collection to which the elements are added.
+     * @param maxElements The maximum number of elements to be transferred.
+     * @return The number of elements transferred.
+     * @throws IllegalArgumentException If the collection is this queue.
+     */
+    public int drainTo(Collection<? super T> dest, int maxElements) {
+        if (dest == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = 0;
+        while (count < maxElements && !isEmpty()) {
+            dest.add(poll());
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Removes as many elements of the queue as fit into the specified array
+     * and stores them in the order in which they would have been removed.
+     *
+     * @param dest The array in which the elements are stored.
+     * @return The number of elements transferred.
+     */
+    public int drainTo(T[] dest) {
+        int count = 0;
+        while (count < dest.length && !isEmpty()) {
+            dest[count++] = poll();
+        }
+        return count;
+    }
+
+    /**
+     * Returns a list consisting of all the elements stored in the queue, in
+     * the order in which they would be removed.
+     *
+     * @return A list consisting of all the elements in the queue.
+     */
+    public List<T> toList() {
+        List<T> list = new ArrayList<>(_size);
+        for (T element : this) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. Unlike the other
+     * heaps, the elements are returned in the order in which they would be
+     * removed. The iterator is fail-fast and does not support removal of
+     * elements.
+     *
+     * @return An iterator over the elements in this queue.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Iterator that walks the non-empty levels in ascending order.
+     */
+    private final class Itr implements Iterator<T> {
+
+        private final int _expectedModCount = _modCount;
+        private int _level = first();
+        private int _index = 0;
+
+        @Override
+        public boolean hasNext() {
+            return _level >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (_expectedModCount != _modCount) {
+                throw new ConcurrentModificationException();
+            } else if (_level < 0) {
+                throw new NoSuchElementException();
+            }
+            final Object[] bucket = _buckets[_level];
+            final T element = (T) bucket[(_heads[_level] + _index) & (bucket.length - 1)];
+            if (++_index == _counts[_level]) {
+                _index = 0;
+                _level = nextLevel(_level + 1);
+            }
+            return element;
+        }
+
+        /**
+         * Returns the first non-empty level starting at the specified one.
+         */
+        private int nextLevel(int from) {
+            int word = from >>> 6;
+            if (word >= _bits.length) {
+                return -1;
+            }
+            long bits = _bits[word] & (-1L << from);
+            while (bits == 0) {
+                if (++word == _bits.length) {
+                    return -1;
+                }
+                bits = _bits[word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+    }
+}
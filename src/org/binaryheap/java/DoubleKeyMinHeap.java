@@ -0,0 +1,190 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Extends BinaryHeap and offers functionality of a minimum priority queue whose
+ * elements are ordered by a primitive {@code double} key. The key of an element
+ * is extracted exactly once when it is added and then cached in an array that
+ * is kept in parallel to the heap. All comparisons while sifting are therefore
+ * primitive comparisons on contiguous memory, the elements themselves are never
+ * touched. Keys are compared as by {@link Double#compare(double, double)}, i.e.
+ * {@code -0.0} is smaller than {@code 0.0} and {@code NaN} is the largest key.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class DoubleKeyMinHeap<T> extends BinaryHeap<T> implements Serializable {
+
+    private static final long serialVersionUID = 6121553264813574330L;
+
+    /**
+     * Function used to extract the key of an element.
+     */
+    private final ToDoubleFunction<? super T> _keyExtractor;
+
+    /**
+     * The cached key of each element, stored in parallel to the heap.
+     */
+    private double[] _keys;
+
+    /**
+     * Initializes a new binary minimum heap with default size, which allows 32
+     * elements to be stored. As the first element has to be {@code null}, the
+     * true size of the heap is 33. The element with the smallest key is the
+     * root element.
+     *
+     * @param keyExtractor The function used to extract the key of an element.
+     */
+    public DoubleKeyMinHeap(ToDoubleFunction<? super T> keyExtractor) {
+        this(INITIAL_SIZE - 1, keyExtractor);
+    }
+
+    /**
+     * Initializes a new binary minimum heap with the specified size. The size
+     * specified is the number of elements that can be stored in the heap. This
+     * means that the true size of the heap is the specified size plus one
+     * {@code size + 1}. The element with the smallest key is the root element.
+     *
+     * @param size The size of the heap.
+     * @param keyExtractor The function used to extract the key of an element.
+     */
+    public DoubleKeyMinHeap(int size, ToDoubleFunction<? super T> keyExtractor) {
+        super(size, Comparator.comparingDouble(keyExtractor));
+        _keyExtractor = keyExtractor;
+        _keys = new double[size + 1];
+    }
+
+    /**
+     * Returns the key of the first element of the heap without removing it.
+     * Any buffered elements are merged into the heap first.
+     *
+     * @return The key of the first element of the heap.
+     * @throws NoSuchElementException If this heap is empty.
+     */
+    public final double peekKey() {
+        flush();
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return _keys[1];
+    }
+
+    @Override
+    protected final void siftUpComparable(T element) {
+        siftUpUsingComparator(element); // keys are always available
+    }
+
+    @Override
+    protected final void move(int from, int to) {
+        super.move(from, to);
+        ensureKeyCapacity(); // buffered elements may lie beyond the keys
+        _keys[to] = _keys[from];
+    }
+
+    @Override
+    protected final void heapify() {
+        ensureKeyCapacity();
+        for (int i = _size - _pending + 1; i <= _size; ++i) {
+            _keys[i] = _keyExtractor.applyAsDouble(_heap[i]); // buffered elements
+        }
+        super.heapify();
+    }
+
+    /**
+     * Grows the array of cached keys to the size of the heap if the heap has
+     * been resized.
+     */
+    private void ensureKeyCapacity() {
+        if (_keys.length != _heap.length) {
+            _keys = Arrays.copyOf(_keys, _heap.length);
+        }
+    }
+
+    @Override
+    protected final void siftUpUsingComparator(T element) {
+        ensureKeyCapacity();
+        final double key = _keyExtractor.applyAsDouble(element);
+        int i = _size + 1;
+        while (i > 1 && Double.compare(key, _keys[i / 2]) < 0) {
+            _heap[i] = _heap[i / 2];
+            _keys[i] = _keys[i / 2];
+            i = i / 2;
+        }
+        _heap[i] = element;
+        _keys[i] = key;
+    }
+
+    /**
+     * Shifts the element at the specified position up using its cached key,
+     * so that moving an element to fill a gap never extracts its key again.
+     *
+     * @param index The position of the element to be shifted up.
+     */
+    @Override
+    protected final void siftUpFrom(int index) {
+        final T element = _heap[index];
+        final double key = _keys[index];
+        int i = index;
+        while (i > 1 && Double.compare(key, _keys[i / 2]) < 0) {
+            _heap[i] = _heap[i / 2];
+            _keys[i] = _keys[i / 2];
+            i = i / 2;
+        }
+        _heap[i] = element;
+        _keys[i] = key;
+    }
+
+    @Override
+    protected final void siftDownComparable(int index) {
+        siftDownUsingComparator(index); // keys are always available
+    }
+
+    @Override
+    protected final void siftDownUsingComparator(int index) {
+        final T element = _heap[index];
+        final double key = _keys[index];
+        int parent = index;
+        while (parent * 2 <= _size) {
+            int child = parent * 2;
+            if (child < _size && Double.compare(_keys[child + 1], _keys[child]) < 0) {
+                ++child; // right child is smaller than left one
+            }
+            if (Double.compare(_keys[child], key) >= 0) {
+                break;
+            }
+            _heap[parent] = _heap[child];
+            _keys[parent] = _keys[child];
+            parent = child;
+        }
+        _heap[parent] = element;
+        _keys[parent] = key;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.EventListener;
+
+/**
+ * A listener that is notified about changes of a {@link BinaryHeap}. Both
+ * methods do nothing by default, so that only the events of interest have to be
+ * implemented. Listeners are called synchronously by the thread that modified
+ * the heap, after the modification is complete.
+ * <p>
+ * On Java 9 or later, the removed elements can be consumed as a reactive
+ * stream with backpressure through {@code HeapPublisher} of the
+ * {@code binaryheap-flow} module, which is built on top of this interface.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public interface HeapListener<T> extends EventListener {
+
+    /**
+     * Called when the first element of the heap has changed.
+     *
+     * @param oldTop The previous first element or {@code null} if the heap was
+     * empty.
+     * @param newTop The current first element or {@code null} if the heap is
+     * empty.
+     */
+    default void topChanged(T oldTop, T newTop) {
+    }
+
+    /**
+     * Called when an element has been removed from the heap, regardless of its
+     * position. Polled elements are reported in the order they are removed.
+     * Elements removed at once, e.g. by {@link BinaryHeap#clear()} or
+     * {@link BinaryHeap#removeIf}, are reported in the order they are stored in
+     * the heap, before the change of the first element is reported.
+     *
+     * @param element The removed element.
+     */
+    default void elementRemoved(T element) {
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable minimum heap implemented as a leftist heap with path copying.
+ * Every update returns a new heap which shares all unchanged nodes with the
+ * heap it has been derived from, allocating only {@code O(log n)} new nodes.
+ * Taking a snapshot of a heap therefore is free, as the heap itself never
+ * changes. A writer can publish new versions, e.g. via a {@code volatile} field
+ * or an {@link java.util.concurrent.atomic.AtomicReference}, and any number of
+ * readers can iterate over the version they have read without locks or copies.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class PersistentHeap<T> implements Iterable<T> {
+
+    /**
+     * The root of the heap or {@code null} if the heap is empty.
+     */
+    private final Node<T> _root;
+
+    /**
+     * The {@link Comparator} used for comparing the elements in the heap.
+     */
+    private final Comparator<? super T> _comp;
+
+    /**
+     * Initializes an empty heap which orders its elements according to their
+     * natural ordering. In a minimum heap, the smallest element is the root
+     * element.
+     */
+    public PersistentHeap() {
+        this(null, null);
+    }
+
+    /**
+     * Initializes an empty heap which orders its elements using the specified
+     * {@link Comparator}. In a minimum heap, the smallest element is the root
+     * element.
+     *
+     * @param comp The {@link Comparator} used by the heap.
+     */
+    public PersistentHeap(Comparator<? super T> comp) {
+        this(null, Objects.requireNonNull(comp));
+    }
+
+    private PersistentHeap(Node<T> root, Comparator<? super T> comp) {
+        _root = root;
+        _comp = comp;
+    }
+
+    /**
+     * Returns the number of elements stored in the heap.
+     *
+     * @return The number of elements stored in the heap.
+     */
+    public int size() {
+        return _root != null ? _root._size : 0;
+    }
+
+    /**
+     * Checks whether this heap contains any elements.
+     *
+     * @return True if the heap is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return _root == null;
+    }
+
+    /**
+     * Returns the first element of the heap.
+     *
+     * @return The first element of the heap or {@code null} if heap is empty.
+     */
+    public T peek() {
+        return _root != null ? _root._element : null;
+    }
+
+    /**
+     * Returns a heap that contains all elements of this heap and the specified
+     * element. This heap is not modified.
+     *
+     * @param element The element to be added.
+     * @return A heap that additionally contains the specified element.
+     */
+    public PersistentHeap<T> add(T element) {
+        Objects.requireNonNull(element);
+        Node<T> node = new Node<>(element, null, null);
+        return new PersistentHeap<>(merge(_root, node), _comp);
+    }
+
+    /**
+     * Returns a heap that contains all elements of this heap except for the
+     * first one. This heap is not modified.
+     *
+     * @return A heap without the first element of this heap.
+     * @throws NoSuchElementException If this heap is empty.
+     */
+    public PersistentHeap<T> removeFirst() {
+        if (_root == null) {
+            throw new NoSuchElementException();
+        }
+        return new PersistentHeap<>(merge(_root._left, _root._right), _comp);
+    }
+
+    /**
+     * Returns a heap that contains all elements of this and the specified heap
+     * in {@code O(log n)} time. Both heaps have to use the same ordering and
+     * are not modified.
+     *
+     * @param other The heap to be merged with this heap.
+     * @return A heap that contains the elements of both heaps.
+     * @throws IllegalArgumentException If the heaps use different orderings.
+     */
+    public PersistentHeap<T> merge(PersistentHeap<T> other) {
+        if (!Objects.equals(_comp, other._comp)) {
+            throw new IllegalArgumentException("Heaps use different orderings");
+        }
+        return new PersistentHeap<>(merge(_root, other._root), _comp);
+    }
+
+    /**
+     * Returns the {@link Comparator} used to order the elements of this heap,
+     * or {@code null} if this heap is sorted according to the natural ordering
+     * of its elements.
+     *
+     * @return The {@link Comparator} used to order this heap or {@code null}.
+     */
+    public Comparator<? super T> comparator() {
+        return _comp;
+    }
+
+    /**
+     * Returns a list consisting of all the elements stored in the heap.
+     *
+     * @return A list consisting of all the elements in the heap.
+     */
+    public List<T> toList() {
+        List<T> elements = new ArrayList<>(size());
+        for (T element : this) {
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns an iterator over the elements in this heap. The elements are not
+     * returned in any particular order. As the heap is immutable, the iterator
+     * may be used concurrently with updates that derive new heaps.
+     *
+     * @return An iterator over the elements in this heap.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Itr<>(_root);
+    }
+
+    /**
+     * Merges two leftist heaps by copying the nodes on the right spine of the
+     * heap with the smaller root.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        int result = _comp != null ? _comp.compare(b._element, a._element)
+                : ((Comparable<? super T>) b._element).compareTo(a._element);
+        if (result < 0) {
+            Node<T> temp = a;
+            a = b;
+            b = temp;
+        }
+        return new Node<>(a._element, a._left, merge(a._right, b));
+    }
+
+    /**
+     * An immutable node of the heap.
+     */
+    private static final class Node<T> {
+
+        private final T _element;
+        private final Node<T> _left, _right;
+
+        /**
+         * The length of the right spine of this node.
+         */
+        private final int _rank;
+
+        /**
+         * The number of nodes in the subtree rooted at this node.
+         */
+        private final int _size;
+
+        Node(T element, Node<T> left, Node<T> right) {
+            if (rank(left) < rank(right)) { // keep the heap leftist
+                Node<T> temp = left;
+                left = right;
+                right = temp;
+            }
+            _element = element;
+            _left = left;
+            _right = right;
+            _rank = rank(right) + 1;
+            _size = size(left) + size(right) + 1;
+        }
+
+        private static int rank(Node<?> node) {
+            return node != null ? node._rank : 0;
+        }
+
+        private static int size(Node<?> node) {
+            return node != null ? node._size : 0;
+        }
+    }
+
+    /**
+     * Iterator that walks the nodes of a heap in pre-order.
+     */
+    private static final class Itr<T> implements Iterator<T> {
+
+        private final Deque<Node<T>> _nodes = new ArrayDeque<>();
+
+        Itr(Node<T> root) {
+            if (root != null) {
+                _nodes.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !_nodes.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (_nodes.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = _nodes.pop();
+            if (node._right != null) {
+                _nodes.push(node._right);
+            }
+            if (node._left != null) {
+                _nodes.push(node._left);
+            }
+            return node._element;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+/**
+ * The first element and the size of a heap guarded by a lock, published after
+ * each modification so that other threads can read them without acquiring the
+ * lock. This implementation uses volatile fields. The multi-release JAR built
+ * by Maven replaces it on Java 11 and later with one using release stores and
+ * acquire loads, which is all the readers require, see {@code src-java11}.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+class PublishedTop<T> {
+
+    private volatile T _top;
+
+    private volatile int _size;
+
+    /**
+     * Publishes the first element and the size of the heap. Must only be called
+     * while holding the lock of the heap.
+     *
+     * @param top The first element or {@code null} if the heap is empty.
+     * @param size The number of elements of the heap.
+     */
+    final void publish(T top, int size) {
+        _top = top;
+        _size = size;
+    }
+
+    /**
+     * Returns the last published first element.
+     *
+     * @return The first element or {@code null} if the heap has been empty.
+     */
+    final T top() {
+        return _top;
+    }
+
+    /**
+     * Returns the last published size.
+     *
+     * @return The number of elements of the heap.
+     */
+    final int size() {
+        return _size;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+/**
+ * Collects statistics about the rank error of elements removed from a relaxed
+ * priority queue. The rank error of a removed element is the number of elements
+ * that were still queued and should have been removed before it. An exact
+ * priority queue always has a rank error of zero. Instances of this class are
+ * safe to be used by multiple threads.
+ *
+ * @author Matthias Fussenegger
+ */
+public final class RankErrorStatistics {
+
+    /**
+     * The number of recorded samples.
+     */
+    private long _samples = 0;
+
+    /**
+     * The number of recorded samples with a rank error greater than zero.
+     */
+    private long _errors = 0;
+
+    /**
+     * The sum of all recorded rank errors.
+     */
+    private long _sum = 0;
+
+    /**
+     * The largest recorded rank error.
+     */
+    private long _max = 0;
+
+    /**
+     * Records the rank error of a removed element.
+     *
+     * @param rankError The rank error to be recorded.
+     */
+    public synchronized void record(long rankError) {
+        ++_samples;
+        if (rankError > 0) {
+            ++_errors;
+            _sum += rankError;
+            _max = Math.max(_max, rankError);
+        }
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return The number of recorded samples.
+     */
+    public synchronized long getSamples() {
+        return _samples;
+    }
+
+    /**
+     * Returns the fraction of recorded samples that had a rank error greater
+     * than zero, i.e. the fraction of elements that were removed too early.
+     *
+     * @return The error rate or zero if no samples have been recorded.
+     */
+    public synchronized double getErrorRate() {
+        return _samples > 0 ? (double) _errors / _samples : 0.0;
+    }
+
+    /**
+     * Returns the mean rank error of all recorded samples.
+     *
+     * @return The mean rank error or zero if no samples have been recorded.
+     */
+    public synchronized double getMeanRankError() {
+        return _samples > 0 ? (double) _sum / _samples : 0.0;
+    }
+
+    /**
+     * Returns the largest recorded rank error.
+     *
+     * @return The largest recorded rank error.
+     */
+    public synchronized long getMaxRankError() {
+        return _max;
+    }
+
+    /**
+     * Removes all recorded samples.
+     */
+    public synchronized void reset() {
+        _samples = _errors = _sum = _max = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "samples=" + _samples + ", errorRate=" + getErrorRate()
+                + ", meanRankError=" + getMeanRankError()
+                + ", maxRankError=" + _max;
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent minimum priority queue that consists of one
+ * {@link BinaryMinHeap} per shard, e.g. one per core or worker thread. Each
+ * shard is guarded by its own lock, which keeps contention low as long as
+ * threads mostly operate on different shards.
+ * <p>
+ * The ordering is only approximately global. {@link #poll()} compares the first
+ * elements of two randomly chosen shards and removes the smaller one, which
+ * keeps the rank error small in practice. Workers that own a shard use
+ * {@link #add(int, Object)} and {@link #poll(int)} instead; a worker whose
+ * shard has run empty steals a batch of the best elements from the shard with
+ * the smallest first element. The rank error of removed elements can be
+ * measured by enabling sampling, see {@link #setRankErrorSampling(int)}.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class ShardedHeap<T> extends AbstractQueue<T> {
+
+    /**
+     * The shards of this heap.
+     */
+    private final Shard<T>[] _shards;
+
+    /**
+     * The {@link Comparator} used for comparing the elements in the heap.
+     */
+    private final Comparator<? super T> _comp;
+
+    /**
+     * The maximum number of elements stolen at once by an empty shard.
+     */
+    private volatile int _stealBatchSize = 32;
+
+    /**
+     * One out of how many removals is sampled on average, or zero if sampling
+     * is disabled.
+     */
+    private volatile int _sampleInterval = 0;
+
+    /**
+     * The statistics of the sampled rank errors.
+     */
+    private final RankErrorStatistics _stats = new RankErrorStatistics();
+
+    /**
+     * The generator used to choose shards and samples or {@code null} to use
+     * {@link ThreadLocalRandom}.
+     */
+    private final Random _random;
+
+    /**
+     * Initializes a new sharded heap with one shard per available processor,
+     * which orders its elements according to their natural ordering.
+     */
+    public ShardedHeap() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes a new sharded heap with the specified number of shards, which
+     * orders its elements according to their natural ordering.
+     *
+     * @param shards The number of shards.
+     */
+    public ShardedHeap(int shards) {
+        this(shards, null);
+    }
+
+    /**
+     * Initializes a new sharded heap with the specified number of shards, which
+     * orders its elements using the specified {@link Comparator}.
+     *
+     * @param shards The number of shards.
+     * @param comp The {@link Comparator} used by the heap or {@code null} to
+     * use the natural ordering of the elements.
+     */
+    public ShardedHeap(int shards, Comparator<? super T> comp) {
+        this(shards, comp, null);
+    }
+
+    /**
+     * Initializes a new sharded heap whose random choices are made by the
+     * specified generator, so that single-threaded runs can be replayed.
+     *
+     * @param shards The number of shards.
+     * @param comp The {@link Comparator} used by the heap or {@code null} to
+     * use the natural ordering of the elements.
+     * @param random The generator used to choose shards and samples or
+     * {@code null} to use {@link ThreadLocalRandom}.
+     */
+    @SuppressWarnings("unchecked")
+    ShardedHeap(int shards, Comparator<? super T> comp, Random random) {
+        if (shards < 1) {
+            throw new IllegalArgumentException();
+        }
+        _comp = comp;
+        _random = random;
+        _shards = (Shard<T>[]) new Shard<?>[shards];
+        for (int i = 0; i < shards; ++i) {
+            _shards[i] = new Shard<>(comp);
+        }
+    }
+
+    /**
+     * Returns the number of shards of this heap.
+     *
+     * @return The number of shards.
+     */
+    public int shards() {
+        return _shards.length;
+    }
+
+    /**
+     * Sets the maximum number of elements that an empty shard steals at once.
+     *
+     * @param batchSize The maximum number of elements stolen at once.
+     */
+    public void setStealBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        _stealBatchSize = batchSize;
+    }
+
+    /**
+     * Enables sampling of the rank error of removed elements. On average one
+     * out of {@code interval} removals is sampled. Sampling counts all
+     * elements in all shards that are smaller than the removed one, locking
+     * one shard at a time, which takes linear time. The results are available
+     * via {@link #rankErrorStatistics()}.
+     *
+     * @param interval One out of how many removals is sampled on average or
+     * zero to disable sampling.
+     */
+    public void setRankErrorSampling(int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException();
+        }
+        _sampleInterval = interval;
+    }
+
+    /**
+     * Returns the statistics of the sampled rank errors.
+     *
+     * @return The statistics of the sampled rank errors.
+     */
+    public RankErrorStatistics rankErrorStatistics() {
+        return _stats;
+    }
+
+    /**
+     * Returns the number of elements in this heap. The result is only a
+     * snapshot if the heap is modified concurrently.
+     *
+     * @return The number of elements in this heap.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard<T> shard : _shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Adds an element to the shard of the calling thread. If that shard is
+     * locked by another thread, the element is added to the next shard that
+     * is not locked.
+     *
+     * @param element The element to be added.
+     * @return Always true.
+     */
+    @Override
+    public boolean offer(T element) {
+        Objects.requireNonNull(element);
+        final int home = (int) (Thread.currentThread().getId() % _shards.length);
+        for (int i = 0; i < _shards.length; ++i) {
+            Shard<T> shard = _shards[(home + i) % _shards.length];
+            if (shard._lock.tryLock()) {
+                try {
+                    shard.add(element);
+                } finally {
+                    shard._lock.unlock();
+                }
+                return true;
+            }
+        }
+        return add(home, element);
+    }
+
+    /**
+     * Adds an element to the specified shard.
+     *
+     * @param shard The index of the shard.
+     * @param element The element to be added.
+     * @return Always true.
+     */
+    public boolean add(int shard, T element) {
+        Objects.requireNonNull(element);
+        Shard<T> s = _shards[shard];
+        s._lock.lock();
+        try {
+            s.add(element);
+        } finally {
+            s._lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the smallest of the first elements of all shards without
+     * removing it. The result is only a snapshot if the heap is modified
+     * concurrently.
+     *
+     * @return The smallest first element of all shards or {@code null} if the
+     * heap is empty.
+     */
+    @Override
+    public T peek() {
+        Shard<T> best = best(-1);
+        return best != null ? best.top() : null;
+    }
+
+    /**
+     * Removes the first element of one out of two randomly chosen shards,
+     * whichever is smaller. Only if both are empty, all shards are searched.
+     *
+     * @return An element with a small rank or {@code null} if the heap is
+     * empty.
+     */
+    @Override
+    public T poll() {
+        if (_shards.length > 1) {
+            final Random rand = random();
+            for (int attempt = 0; attempt < _shards.length; ++attempt) {
+                int i = rand.nextInt(_shards.length);
+                int j = rand.nextInt(_shards.length - 1);
+                if (j >= i) {
+                    ++j;
+                }
+                Shard<T> shard = precedes(_shards[j].top(), _shards[i].top())
+                        ? _shards[j] : _shards[i];
+                if (shard.top() == null) {
+                    break; // both are empty
+                } else if (shard._lock.tryLock()) {
+                    T element;
+                    try {
+                        element = shard.poll();
+                    } finally {
+                        shard._lock.unlock();
+                    }
+                    if (element != null) {
+                        return sample(element);
+                    }
+                }
+            }
+        }
+        for (Shard<T> shard = best(-1); shard != null; shard = best(-1)) {
+            T element = poll(shard);
+            if (element != null) {
+                return sample(element);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the first element of the specified shard. If the shard is empty,
+     * a batch of the best elements is stolen from the shard with the smallest
+     * first element.
+     *
+     * @param shard The index of the shard.
+     * @return The first element of the shard or {@code null} if the heap is
+     * empty.
+     */
+    public T poll(int shard) {
+        final Shard<T> own = _shards[shard];
+        T element = poll(own);
+        while (element == null) {
+            Shard<T> victim = best(shard);
+            if (victim == null) {
+                return null;
+            }
+            element = steal(victim, own);
+        }
+        return sample(element);
+    }
+
+    @Override
+    public void clear() {
+        for (Shard<T> shard : _shards) {
+            shard._lock.lock();
+            try {
+                shard._heap.clear();
+                shard.publish();
+            } finally {
+                shard._lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this heap, which
+     * is taken one shard at a time. The elements are not returned in any
+     * particular order and the iterator does not support removal of elements.
+     *
+     * @return An iterator over the elements in this heap.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        List<T> elements = new ArrayList<>();
+        for (Shard<T> shard : _shards) {
+            shard._lock.lock();
+            try {
+                elements.addAll(shard._heap);
+            } finally {
+                shard._lock.unlock();
+            }
+        }
+        return Collections.unmodifiableList(elements).iterator();
+    }
+
+    /**
+     * Checks whether the first element has to be removed before the second
+     * one, where {@code null} represents the first element of an empty shard.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean precedes(T a, T b) {
+        if (a == null) {
+            return false;
+        } else if (b == null) {
+            return true;
+        }
+        return _comp != null ? _comp.compare(a, b) < 0
+                : ((Comparable<? super T>) a).compareTo(b) < 0;
+    }
+
+    /**
+     * Returns the shard with the smallest first element, not considering the
+     * shard at the specified index, or {@code null} if all shards are empty.
+     */
+    private Shard<T> best(int exclude) {
+        Shard<T> best = null;
+        T top = null;
+        for (int i = 0; i < _shards.length; ++i) {
+            T candidate = _shards[i].top();
+            if (i != exclude && candidate != null && (top == null || precedes(candidate, top))) {
+                best = _shards[i];
+                top = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Locks the specified shard and removes its first element.
+     */
+    private T poll(Shard<T> shard) {
+        shard._lock.lock();
+        try {
+            return shard.poll();
+        } finally {
+            shard._lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a batch of the best elements of the victim to the thief and
+     * returns the best one of them. The locks of both shards are never held at
+     * the same time.
+     */
+    private T steal(Shard<T> victim, Shard<T> thief) {
+        List<T> batch;
+        victim._lock.lock();
+        try {
+            final int count = Math.min(_stealBatchSize, (victim._heap.size() + 1) / 2);
+            batch = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                batch.add(victim._heap.poll());
+            }
+            victim.publish();
+        } finally {
+            victim._lock.unlock();
+        }
+        if (batch.isEmpty()) {
+            return null;
+        } else if (batch.size() > 1) {
+            thief._lock.lock();
+            try {
+                for (int i = 1; i < batch.size(); ++i) {
+                    thief._heap.add(batch.get(i));
+                }
+                thief.publish();
+            } finally {
+                thief._lock.unlock();
+            }
+        }
+        return batch.get(0);
+    }
+
+    /**
+     * Returns the generator used to choose shards and samples.
+     */
+    private Random random() {
+        return _random != null ? _random : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Samples the rank error of the specified removed element if sampling is
+     * enabled and returns the element.
+     */
+    private T sample(T element) {
+        final int interval = _sampleInterval;
+        if (interval > 0 && random().nextInt(interval) == 0) {
+            long rank = 0;
+            for (Shard<T> shard : _shards) {
+                shard._lock.lock();
+                try {
+                    for (T other : shard._heap) {
+                        if (precedes(other, element)) {
+                            ++rank;
+                        }
+                    }
+                } finally {
+                    shard._lock.unlock();
+                }
+            }
+            _stats.record(rank);
+        }
+        return element;
+    }
+
+    /**
+     * A shard, which consists of a heap and the lock guarding it. The first
+     * element and the size of the heap are published after each modification,
+     * so that they can be read without acquiring the lock.
+     */
+    private static final class Shard<T> extends PublishedTop<T> {
+
+        private final ReentrantLock _lock = new ReentrantLock();
+        private final BinaryMinHeap<T> _heap;
+
+        Shard(Comparator<? super T> comp) {
+            _heap = comp != null ? new BinaryMinHeap<>(comp) : new BinaryMinHeap<>();
+        }
+
+        void add(T element) {
+            _heap.add(element);
+            publish();
+        }
+
+        T poll() {
+            T element = _heap.poll();
+            if (element != null) {
+                publish();
+            }
+            return element;
+        }
+
+        void publish() {
+            publish(_heap.peek(), _heap.size());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A minimum heap of fixed-width entries which is stored in a memory-mapped
+ * file, so that several processes on the same host can add and remove entries
+ * of a single heap without any network round trip. Each entry consists of a
+ * {@code long} priority, by which the entries are ordered, and a {@code long}
+ * value, e.g. the identifier of a task stored elsewhere.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes, which holds a
+ * magic number, the format version, the capacity and the current size of the
+ * heap, followed by the entries of {@value #ENTRY_SIZE} bytes each. Every
+ * operation locks the header using a {@link FileLock}, which excludes other
+ * processes, and a lock shared by all instances of the same file within this
+ * JVM, since file locks are held on behalf of the whole JVM.
+ * <p>
+ * The capacity is fixed when the file is created. The heap is not unmapped
+ * when it is closed, since Java 8 has no means to do so, but the memory is
+ * released once the heap has been garbage collected.
+ *
+ * @author Matthias Fussenegger
+ */
+public final class SharedMemoryHeap implements Closeable {
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of an entry in bytes.
+     */
+    public static final int ENTRY_SIZE = 16;
+
+    private static final int MAGIC = 0x42484550;
+
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    private static final int SIZE_OFFSET = 12;
+
+    /**
+     * The files opened within this JVM, which is also the lock guarding them.
+     */
+    private static final Map<Path, SharedFile> FILES = new HashMap<>();
+
+    private final FileChannel _channel;
+
+    private final MappedByteBuffer _buffer;
+
+    private final Path _path;
+
+    private final SharedFile _shared;
+
+    private final ReentrantLock _lock;
+
+    private final int _capacity;
+
+    /**
+     * Opens the heap stored in the specified file or creates a new, empty heap
+     * if the file does not exist or is empty.
+     *
+     * @param file The file in which the heap is stored.
+     * @param capacity The maximum number of entries of the heap, which has to
+     * match the capacity of an existing heap.
+     * @throws IOException If the file could not be opened or mapped, or if it
+     * does not contain a heap with the specified capacity.
+     */
+    public SharedMemoryHeap(Path file, int capacity) throws IOException {
+        if (capacity < 1 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / ENTRY_SIZE) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        _channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            _path = file.toRealPath();
+        } catch (IOException | RuntimeException ex) {
+            _channel.close();
+            throw ex;
+        }
+        synchronized (FILES) {
+            _shared = FILES.computeIfAbsent(_path, p -> new SharedFile());
+            ++_shared._instances;
+        }
+        _lock = _shared._lock;
+        _capacity = capacity;
+        try {
+            _buffer = map(file);
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Maps the file and initializes the header if the file has been created,
+     * otherwise checks that the header matches the capacity.
+     */
+    private MappedByteBuffer map(Path file) throws IOException {
+        final FileLock lock = lock();
+        try {
+            final long length = HEADER_SIZE + (long) _capacity * ENTRY_SIZE;
+            final boolean created = _channel.size() == 0;
+            if (!created && _channel.size() != length) {
+                throw new IOException("Size of " + file
+                        + " does not match a capacity of " + _capacity);
+            }
+            final MappedByteBuffer buffer = _channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (created) {
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putInt(CAPACITY_OFFSET, _capacity);
+                buffer.putInt(SIZE_OFFSET, 0);
+            } else if (buffer.getInt(MAGIC_OFFSET) != MAGIC
+                    || buffer.getInt(VERSION_OFFSET) != VERSION
+                    || buffer.getInt(CAPACITY_OFFSET) != _capacity) {
+                throw new IOException("Not a heap file: " + file);
+            }
+            return buffer;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Returns the maximum number of entries of this heap.
+     *
+     * @return The capacity of this heap.
+     */
+    public int capacity() {
+        return _capacity;
+    }
+
+    /**
+     * Returns the number of entries currently stored in the heap.
+     *
+     * @return The number of entries in the heap.
+     * @throws IOException If the file could not be locked.
+     */
+    public int size() throws IOException {
+        final FileLock lock = lock();
+        try {
+            return _buffer.getInt(SIZE_OFFSET);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Checks whether this heap contains any entries.
+     *
+     * @return True if the heap is empty, false otherwise.
+     * @throws IOException If the file could not be locked.
+     */
+    public boolean isEmpty() throws IOException {
+        return size() == 0;
+    }
+
+    /**
+     * Adds an entry to the heap.
+     *
+     * @param priority The priority of the entry, where lower values are
+     * removed first.
+     * @param value The value of the entry.
+     * @return True if the entry has been added, false if the heap is full.
+     * @throws IOException If the file could not be locked.
+     */
+    public boolean offer(long priority, long value) throws IOException {
+        final FileLock lock = lock();
+        try {
+            final int size = _buffer.getInt(SIZE_OFFSET);
+            if (size == _capacity) {
+                return false;
+            }
+            int index = size;
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (priority(parent) <= priority) {
+                    break;
+                }
+                copy(parent, index);
+                index = parent;
+            }
+            put(index, priority, value);
+            _buffer.putInt(SIZE_OFFSET, size + 1);
+            return true;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Copies the first entry of the heap into the specified array without
+     * removing it.
+     *
+     * @param entry The array of at least two elements which receives the
+     * priority and the value of the entry.
+     * @return True if the entry has been copied, false if the heap is empty.
+     * @throws IOException If the file could not be locked.
+     */
+    public boolean peek(long[] entry) throws IOException {
+        final FileLock lock = lock();
+        try {
+            if (_buffer.getInt(SIZE_OFFSET) == 0) {
+                return false;
+            }
+            entry[0] = priority(0);
+            entry[1] = value(0);
+            return true;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Removes the first entry of the heap, which is an entry with the lowest
+     * priority, and copies it into the specified array.
+     *
+     * @param entry The array of at least two elements which receives the
+     * priority and the value of the entry.
+     * @return True if an entry has been removed, false if the heap is empty.
+     * @throws IOException If the file could not be locked.
+     */
+    public boolean poll(long[] entry) throws IOException {
+        final FileLock lock = lock();
+        try {
+            final int size = _buffer.getInt(SIZE_OFFSET) - 1;
+            if (size < 0) {
+                return false;
+            }
+            entry[0] = priority(0);
+            entry[1] = value(0);
+            final long priority = priority(size);
+            final long value = value(size);
+            int index = 0;
+            int child;
+            while ((child = 2 * index + 1) < size) {
+                if (child + 1 < size && priority(child + 1) < priority(child)) {
+                    ++child;
+                }
+                if (priority <= priority(child)) {
+                    break;
+                }
+                copy(child, index);
+                index = child;
+            }
+            put(index, priority, value);
+            _buffer.putInt(SIZE_OFFSET, size);
+            return true;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Removes all entries of the heap.
+     *
+     * @throws IOException If the file could not be locked.
+     */
+    public void clear() throws IOException {
+        final FileLock lock = lock();
+        try {
+            _buffer.putInt(SIZE_OFFSET, 0);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Writes all changes to the storage device. This is not required for other
+     * processes to see the changes, only to keep them after a system crash.
+     */
+    public void force() {
+        _buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (FILES) {
+            if (!_channel.isOpen()) {
+                return;
+            } else if (--_shared._instances == 0) {
+                FILES.remove(_path);
+            }
+        }
+        _channel.close();
+    }
+
+    private FileLock lock() throws IOException {
+        _lock.lock();
+        try {
+            return _channel.lock(0, HEADER_SIZE, false);
+        } catch (IOException | RuntimeException ex) {
+            _lock.unlock();
+            throw ex;
+        }
+    }
+
+    private void unlock(FileLock lock) throws IOException {
+        try {
+            lock.release();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private long priority(int index) {
+        return _buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    private long value(int index) {
+        return _buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE + 8);
+    }
+
+    private void put(int index, long priority, long value) {
+        final int offset = HEADER_SIZE + index * ENTRY_SIZE;
+        _buffer.putLong(offset, priority);
+        _buffer.putLong(offset + 8, value);
+    }
+
+    private void copy(int from, int to) {
+        put(to, priority(from), value(from));
+    }
+
+    /**
+     * The lock of a file opened within this JVM and the number of instances
+     * using it, so that the lock is released when the last one is closed.
+     */
+    private static final class SharedFile {
+
+        private final ReentrantLock _lock = new ReentrantLock();
+        private int _instances = 0;
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An approximate minimum priority queue implemented as a soft heap, following
+ * the simplified soft heap of Kaplan, Tarjan and Zwick. A soft heap trades
+ * exactness for speed: elements may become corrupted, i.e. their key is raised
+ * to the key of another element, which is why they may be removed later than
+ * they should have been. At any time at most {@code epsilon * n} elements are
+ * corrupted, where {@code n} is the number of elements that have been added.
+ * In return, {@link #add(Object)} runs in constant amortized time and
+ * {@link #poll()} in {@code O(log(1 / epsilon))} amortized time, independent of
+ * the number of elements stored in the queue.
+ * <p>
+ * The rank error of removed elements can be measured by enabling sampling, see
+ * {@link #setRankErrorSampling(int)}.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class SoftHeap<T> extends AbstractQueue<T> {
+
+    /**
+     * The rank up to which nodes hold a single element. Nodes of a higher rank
+     * may hold lists of elements and thus corrupt them.
+     */
+    private final int _rankLimit;
+
+    /**
+     * The {@link Comparator} used for comparing the elements in the heap.
+     */
+    private final Comparator<? super T> _comp;
+
+    /**
+     * The root of the tree of each rank or {@code null} if there is no tree of
+     * that rank.
+     */
+    private Node<T>[] _roots;
+
+    /**
+     * The rank of the root with the smallest key among the roots with a rank
+     * greater than or equal to the index, or -1 if there is no such root.
+     */
+    private int[] _suffixMin;
+
+    /**
+     * One plus the highest rank of all roots.
+     */
+    private int _height = 0;
+
+    /**
+     * The number of elements currently stored in the heap.
+     */
+    private int _size = 0;
+
+    /**
+     * The number of times this heap has been structurally modified.
+     */
+    private int _modCount = 0;
+
+    /**
+     * Every how many removals the rank error is sampled or zero if sampling is
+     * disabled.
+     */
+    private int _sampleInterval = 0;
+
+    /**
+     * The number of removals since the rank error has last been sampled.
+     */
+    private int _removals = 0;
+
+    /**
+     * The statistics of the sampled rank errors.
+     */
+    private final RankErrorStatistics _stats = new RankErrorStatistics();
+
+    /**
+     * Initializes a new soft heap which orders its elements according to their
+     * natural ordering.
+     *
+     * @param epsilon The error rate, i.e. the maximum fraction of corrupted
+     * elements, which has to be greater than zero and less than one.
+     */
+    public SoftHeap(double epsilon) {
+        this(epsilon, null);
+    }
+
+    /**
+     * Initializes a new soft heap which orders its elements using the
+     * specified {@link Comparator}.
+     *
+     * @param epsilon The error rate, i.e. the maximum fraction of corrupted
+     * elements, which has to be greater than zero and less than one.
+     * @param comp The {@link Comparator} used by the heap or {@code null} to
+     * use the natural ordering of the elements.
+     */
+    @SuppressWarnings("unchecked")
+    public SoftHeap(double epsilon, Comparator<? super T> comp) {
+        if (!(epsilon > 0.0 && epsilon < 1.0)) {
+            throw new IllegalArgumentException("epsilon must be in (0, 1)");
+        }
+        _rankLimit = (int) Math.ceil(Math.log(3.0 / epsilon) / Math.log(2.0));
+        _comp = comp;
+        _roots = (Node<T>[]) new Node<?>[16];
+        _suffixMin = new int[16];
+    }
+
+    /**
+     * Enables sampling of the rank error of removed elements. Every
+     * {@code interval} removals the rank error of the removed element is
+     * determined by comparing it to all remaining elements, which takes linear
+     * time. The results are available via {@link #rankErrorStatistics()}.
+     *
+     * @param interval Every how many removals the rank error is sampled or zero
+     * to disable sampling.
+     */
+    public void setRankErrorSampling(int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException();
+        }
+        _sampleInterval = interval;
+        _removals = 0;
+    }
+
+    /**
+     * Returns the statistics of the sampled rank errors.
+     *
+     * @return The statistics of the sampled rank errors.
+     */
+    public RankErrorStatistics rankErrorStatistics() {
+        return _stats;
+    }
+
+    /**
+     * Returns the {@link Comparator} used to order the elements of this heap,
+     * or {@code null} if this heap is sorted according to the natural ordering
+     * of its elements.
+     *
+     * @return The {@link Comparator} used to order this heap or {@code null}.
+     */
+    public Comparator<? super T> comparator() {
+        return _comp;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Adds an element to the heap.
+     *
+     * @param element The element to be added.
+     * @return Always true.
+     */
+    @Override
+    public boolean offer(T element) {
+        Objects.requireNonNull(element);
+        Node<T> carry = new Node<>(element);
+        int rank = 0;
+        while (rank < _height && _roots[rank] != null) {
+            carry = combine(_roots[rank], carry);
+            _roots[rank] = null;
+            ++rank;
+        }
+        if (rank == _roots.length) {
+            _roots = Arrays.copyOf(_roots, rank * 2);
+            _suffixMin = Arrays.copyOf(_suffixMin, rank * 2);
+        }
+        _roots[rank] = carry;
+        _height = Math.max(_height, rank + 1);
+        updateSuffixMin(rank);
+        ++_size;
+        ++_modCount;
+        return true;
+    }
+
+    /**
+     * Returns the first element of the heap without removing it. This is the
+     * element that will be returned by the next call of {@link #poll()}.
+     *
+     * @return The first element of the heap or {@code null} if heap is empty.
+     */
+    @Override
+    public T peek() {
+        return !isEmpty() ? _roots[_suffixMin[0]]._first._element : null;
+    }
+
+    /**
+     * Removes and returns the first element of the heap. The element is one of
+     * the elements with the smallest key, where corrupted elements are ordered
+     * by their raised key.
+     *
+     * @return The first element of the heap or {@code null} if heap is empty.
+     */
+    @Override
+    public T poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        final int rank = _suffixMin[0];
+        final Node<T> root = _roots[rank];
+        final Cell<T> cell = root._first;
+        root._first = cell._next;
+        if (--root._count == 0) {
+            root._last = null;
+            if (root.isLeaf()) {
+                _roots[rank] = null;
+                while (_height > 0 && _roots[_height - 1] == null) {
+                    --_height;
+                }
+            } else {
+                sift(root);
+            }
+        }
+        updateSuffixMin(Math.min(rank, _height - 1));
+        --_size;
+        ++_modCount;
+
+        if (_sampleInterval > 0 && ++_removals >= _sampleInterval) {
+            _removals = 0;
+            _stats.record(rankOf(cell._element));
+        }
+        return cell._element;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(_roots, null);
+        _height = 0;
+        _size = 0;
+        ++_modCount;
+    }
+
+    /**
+     * Returns an iterator over the elements in this heap. The elements are
+     * not returned in any particular order. The iterator is fail-fast and does
+     * not support removal of elements.
+     *
+     * @return An iterator over the elements in this heap.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Compares two elements using the {@link Comparator} of this heap or their
+     * natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        return _comp != null ? _comp.compare(a, b)
+                : ((Comparable<? super T>) a).compareTo(b);
+    }
+
+    /**
+     * Combines two trees of the same rank into a tree of the next rank.
+     */
+    private Node<T> combine(Node<T> x, Node<T> y) {
+        final int rank = x._rank + 1;
+        final int targetSize = rank <= _rankLimit ? 1 : (3 * x._targetSize + 1) / 2;
+        Node<T> z = new Node<>(rank, targetSize, x, y);
+        sift(z);
+        return z;
+    }
+
+    /**
+     * Refills the list of the specified node by moving up the lists of its
+     * children until the list has reached its target size or the node has
+     * become a leaf. The key of the node is raised to the key of the last list
+     * moved up, which is what corrupts elements.
+     */
+    private void sift(Node<T> x) {
+        while (x._count < x._targetSize && !x.isLeaf()) {
+            if (x._left == null || (x._right != null
+                    && compare(x._left._key, x._right._key) > 0)) {
+                Node<T> temp = x._left;
+                x._left = x._right;
+                x._right = temp;
+            }
+            final Node<T> child = x._left;
+            if (x._first == null) {
+                x._first = child._first;
+            } else {
+                x._last._next = child._first;
+            }
+            x._last = child._last;
+            x._count += child._count;
+            x._key = child._key;
+            child._first = child._last = null;
+            child._count = 0;
+            if (child.isLeaf()) {
+                x._left = null;
+            } else {
+                sift(child);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the root with the smallest key among the roots with a rank
+     * greater than or equal to each rank up to the specified one.
+     */
+    private void updateSuffixMin(int rank) {
+        for (int i = rank; i >= 0; --i) {
+            int min = i + 1 < _height ? _suffixMin[i + 1] : -1;
+            if (_roots[i] != null && (min < 0
+                    || compare(_roots[i]._key, _roots[min]._key) <= 0)) {
+                min = i;
+            }
+            _suffixMin[i] = min;
+        }
+    }
+
+    /**
+     * Returns the number of elements in this heap that are smaller than the
+     * specified element.
+     */
+    private long rankOf(T element) {
+        long rank = 0;
+        for (T other : this) {
+            if (compare(other, element) < 0) {
+                ++rank;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * A node in one of the trees of the heap, which holds a list of elements.
+     */
+    private static final class Node<T> {
+
+        private final int _rank;
+        private final int _targetSize;
+        private T _key;
+        private Cell<T> _first, _last;
+        private int _count;
+        private Node<T> _left, _right;
+
+        Node(T element) {
+            _rank = 0;
+            _targetSize = 1;
+            _key = element;
+            _first = _last = new Cell<>(element);
+            _count = 1;
+        }
+
+        Node(int rank, int targetSize, Node<T> left, Node<T> right) {
+            _rank = rank;
+            _targetSize = targetSize;
+            _left = left;
+            _right = right;
+        }
+
+        boolean isLeaf() {
+            return _left == null && _right == null;
+        }
+    }
+
+    /**
+     * A cell of the list of elements held by a node.
+     */
+    private static final class Cell<T> {
+
+        private final T _element;
+        private Cell<T> _next;
+
+        Cell(T element) {
+            _element = element;
+        }
+    }
+
+    /**
+     * Iterator that walks all trees of the heap.
+     */
+    private final class Itr implements Iterator<T> {
+
+        private final Deque<Node<T>> _nodes = new ArrayDeque<>();
+        private final int _expectedModCount = _modCount;
+        private Cell<T> _next;
+
+        Itr() {
+            for (int i = 0; i < _height; ++i) {
+                if (_roots[i] != null) {
+                    _nodes.push(_roots[i]);
+                }
+            }
+            advance();
+        }
+
+        private void advance() {
+            while (_next == null && !_nodes.isEmpty()) {
+                Node<T> node = _nodes.pop();
+                if (node._left != null) {
+                    _nodes.push(node._left);
+                }
+                if (node._right != null) {
+                    _nodes.push(node._right);
+                }
+                _next = node._first;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next != null;
+        }
+
+        @Override
+        public T next() {
+            if (_expectedModCount != _modCount) {
+                throw new ConcurrentModificationException();
+            } else if (_next == null) {
+                throw new NoSuchElementException();
+            }
+            T element = _next._element;
+            _next = _next._next;
+            advance();
+            return element;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.AbstractQueue;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A minimum priority queue whose elements expire after a fixed time window,
+ * e.g. to keep track of the top elements of the last five minutes. Each element
+ * carries the time at which it has been added. Expired elements are evicted in
+ * batches whenever the queue is accessed: a second heap, ordered by time,
+ * yields the expired elements without searching for them; they are marked and
+ * either dropped as soon as they reach the first position or removed all at
+ * once when they make up half of the queue. The memory used is therefore bounded
+ * by the number of elements added within the window, not by the total number of
+ * elements ever added.
+ * <p>
+ * Use {@link Comparator#reverseOrder()} to obtain the largest elements first.
+ *
+ * @author Matthias Fussenegger
+ * @param <T> Generic type parameter
+ */
+public final class WindowedHeap<T> extends AbstractQueue<T> {
+
+    /**
+     * The duration after which elements expire, in units of the clock.
+     */
+    private final long _window;
+
+    /**
+     * The clock used to timestamp elements and to determine expired ones.
+     */
+    private final LongSupplier _clock;
+
+    /**
+     * The entries ordered by their elements.
+     */
+    private final BinaryMinHeap<Entry<T>> _heap;
+
+    /**
+     * The entries ordered by their timestamps, i.e. by the time of expiry.
+     */
+    private final LongKeyMinHeap<Entry<T>> _expiry;
+
+    /**
+     * The number of expired entries that are still in the heap of elements.
+     */
+    private int _dead = 0;
+
+    /**
+     * The total number of elements that have expired before being removed.
+     */
+    private long _expiredCount = 0;
+
+    /**
+     * Initializes a new windowed heap which orders its elements according to
+     * their natural ordering.
+     *
+     * @param window The duration after which elements expire, in units of the
+     * clock.
+     * @param clock The clock used to timestamp elements, e.g.
+     * {@code System::currentTimeMillis}.
+     */
+    public WindowedHeap(long window, LongSupplier clock) {
+        this(window, clock, null);
+    }
+
+    /**
+     * Initializes a new windowed heap which orders its elements using the
+     * specified {@link Comparator}.
+     *
+     * @param window The duration after which elements expire, in units of the
+     * clock.
+     * @param clock The clock used to timestamp elements, e.g.
+     * {@code System::currentTimeMillis}.
+     * @param comp The {@link Comparator} used by the heap or {@code null} to
+     * use the natural ordering of the elements.
+     */
+    @SuppressWarnings("unchecked")
+    public WindowedHeap(long window, LongSupplier clock, Comparator<? super T> comp) {
+        if (window <= 0) {
+            throw new IllegalArgumentException();
+        }
+        _window = window;
+        _clock = Objects.requireNonNull(clock);
+        _heap = new BinaryMinHeap<>(comp != null
+                ? (Entry<T> a, Entry<T> b) -> comp.compare(a._element, b._element)
+                : (Entry<T> a, Entry<T> b) -> ((Comparable<? super T>) a._element).compareTo(b._element));
+        _expiry = new LongKeyMinHeap<>(e -> e._timestamp);
+    }
+
+    /**
+     * Returns the duration after which elements expire.
+     *
+     * @return The duration after which elements expire, in units of the clock.
+     */
+    public long getWindow() {
+        return _window;
+    }
+
+    /**
+     * Returns the total number of elements that have expired before they
+     * could be removed.
+     *
+     * @return The number of expired elements.
+     */
+    public long getExpiredCount() {
+        return _expiredCount;
+    }
+
+    /**
+     * Returns the number of elements within the window.
+     *
+     * @return The number of elements within the window.
+     */
+    @Override
+    public int size() {
+        expire();
+        return _heap.size() - _dead;
+    }
+
+    /**
+     * Adds an element with the current time of the clock.
+     *
+     * @param element The element to be added.
+     * @return Always true.
+     */
+    @Override
+    public boolean offer(T element) {
+        return add(element, _clock.getAsLong());
+    }
+
+    /**
+     * Adds an element with the specified timestamp. The element expires once
+     * the clock has advanced by the window past the timestamp.
+     *
+     * @param element The element to be added.
+     * @param timestamp The time at which the element has occurred.
+     * @return Always true.
+     */
+    public boolean add(T element, long timestamp) {
+        Objects.requireNonNull(element);
+        Entry<T> entry = new Entry<>(element, timestamp);
+        _heap.add(entry);
+        _expiry.add(entry);
+        expire();
+        return true;
+    }
+
+    /**
+     * Returns the first element within the window without removing it.
+     *
+     * @return The first element or {@code null} if there is none.
+     */
+    @Override
+    public T peek() {
+        expire();
+        Entry<T> entry = _heap.peek();
+        return entry != null ? entry._element : null;
+    }
+
+    /**
+     * Removes and returns the first element within the window.
+     *
+     * @return The first element or {@code null} if there is none.
+     */
+    @Override
+    public T poll() {
+        expire();
+        Entry<T> entry = _heap.poll();
+        if (entry == null) {
+            return null;
+        }
+        entry._removed = true; // stays in expiry heap until it expires
+        dropExpired();
+        return entry._element;
+    }
+
+    @Override
+    public void clear() {
+        _heap.clear();
+        _expiry.clear();
+        _dead = 0;
+    }
+
+    /**
+     * Evicts all elements that have expired according to the clock. This is
+     * done automatically whenever the heap is accessed.
+     */
+    public void expire() {
+        final long now = _clock.getAsLong();
+        while (!_expiry.isEmpty() && now - _expiry.peekKey() >= _window) {
+            Entry<T> entry = _expiry.poll();
+            if (!entry._removed) {
+                entry._expired = true;
+                ++_dead;
+                ++_expiredCount;
+            }
+        }
+        dropExpired();
+        if (_dead > 0 && _dead >= _heap.size() / 2) {
+            _heap.removeIf(e -> e._expired); // compact in linear time
+            _dead = 0;
+        }
+    }
+
+    /**
+     * Removes the expired entries at the first position of the heap.
+     */
+    private void dropExpired() {
+        while (_dead > 0 && _heap.peek()._expired) {
+            _heap.poll();
+            --_dead;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements within the window. The elements
+     * are not returned in any particular order. The iterator is fail-fast and
+     * does not support removal of elements.
+     *
+     * @return An iterator over the elements within the window.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        expire();
+        final Iterator<Entry<T>> iter = _heap.iterator();
+        return new Iterator<T>() {
+
+            private Entry<T> _next = advance();
+
+            private Entry<T> advance() {
+                while (iter.hasNext()) {
+                    Entry<T> entry = iter.next();
+                    if (!entry._expired) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return _next != null;
+            }
+
+            @Override
+            public T next() {
+                if (_next == null) {
+                    throw new NoSuchElementException();
+                }
+                T element = _next._element;
+                _next = advance();
+                return element;
+            }
+        };
+    }
+
+    /**
+     * An element along with its timestamp.
+     */
+    private static final class Entry<T> {
+
+        private final T _element;
+        private final long _timestamp;
+
+        /**
+         * Whether the element has expired while still in the heap.
+         */
+        private boolean _expired;
+
+        /**
+         * Whether the element has been removed from the heap.
+         */
+        private boolean _removed;
+
+        Entry(T element, long timestamp) {
+            _element = element;
+            _timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Verifies that the hot paths of the heaps do not allocate in steady state.
+ * The allocated bytes are measured per thread, which is only supported by
+ * HotSpot based virtual machines. On other machines the tests are skipped.
+ *
+ * @author Matthias Fussenegger
+ */
+public class AllocationTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    private static final int OPERATIONS = 1 << 20;
+
+    private static com.sun.management.ThreadMXBean _threadBean;
+
+    private static Integer[] _values;
+
+    public AllocationTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            _threadBean = (com.sun.management.ThreadMXBean) bean;
+            if (!_threadBean.isThreadAllocatedMemorySupported()) {
+                _threadBean = null;
+            } else {
+                _threadBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        Random rand = new Random(HEAP_SIZE);
+        _values = new Integer[HEAP_SIZE * 4]; // boxed up front
+        for (int i = 0; i < _values.length; ++i) {
+            _values[i] = rand.nextInt();
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeNotNull(_threadBean);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     */
+    private static long allocatedBytes() {
+        return _threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Adds and removes elements in steady state, i.e. the heap never has to
+     * grow, and returns the number of bytes allocated per operation.
+     */
+    private static double churn(BinaryHeap<Integer> heap, int operations) {
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            heap.add(_values[i]);
+        }
+        final int mask = _values.length - 1;
+        final long before = allocatedBytes();
+        for (int i = 0; i < operations; ++i) {
+            heap.add(_values[i & mask]);
+            heap.poll();
+        }
+        final long after = allocatedBytes();
+        heap.clear();
+        return (double) (after - before) / operations;
+    }
+
+    /**
+     * Runs the churn of the specified heap once to warm up, then measures it.
+     */
+    private static void assertAllocationFree(String name, BinaryHeap<Integer> heap) {
+        churn(heap, OPERATIONS);
+        double bytesPerOp = churn(heap, OPERATIONS);
+        System.out.println(name + ": " + bytesPerOp + " bytes/op");
+        assertTrue(name + " allocates " + bytesPerOp + " bytes/op", bytesPerOp < 0.01);
+    }
+
+    /**
+     * Test of add and poll methods, of class BinaryMinHeap and BinaryMaxHeap.
+     */
+    @Test
+    public void testAddPoll() {
+        System.out.println("ALLOCATION");
+        System.out.println("addPoll");
+        assertAllocationFree("min", new BinaryMinHeap<>(HEAP_SIZE * 2));
+        assertAllocationFree("max", new BinaryMaxHeap<>(HEAP_SIZE * 2));
+        assertAllocationFree("minComparator", new BinaryMinHeap<>(HEAP_SIZE * 2, Integer::compare));
+        assertAllocationFree("maxStable", new BinaryMaxHeap<>(HEAP_SIZE * 2, true));
+        assertAllocationFree("longKey", new LongKeyMinHeap<>(HEAP_SIZE * 2, Integer::longValue));
+    }
+
+    /**
+     * Test of add and poll methods with an insertion buffer, of class
+     * BinaryMinHeap.
+     */
+    @Test
+    public void testAddPollBuffered() {
+        System.out.println("addPollBuffered");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>(HEAP_SIZE * 2);
+        instance.setInsertionBuffer(64, 32);
+        assertAllocationFree("minBuffered", instance);
+    }
+
+    /**
+     * Test of toArray and drainTo methods with reused buffers, of class
+     * BinaryMinHeap.
+     */
+    @Test
+    public void testReusableBuffers() {
+        System.out.println("reusableBuffers");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>(HEAP_SIZE * 2);
+        Integer[] buffer = new Integer[HEAP_SIZE];
+        for (int round = 0; round < 2; ++round) { // first round warms up
+            final long before = allocatedBytes();
+            for (int i = 0; i < 64; ++i) {
+                instance.addAll(_values, i, HEAP_SIZE);
+                assertSame(buffer, instance.toArray(buffer));
+                assertEquals(HEAP_SIZE, instance.drainTo(buffer));
+            }
+            final long bytes = allocatedBytes() - before;
+            System.out.println("buffers: " + bytes + " bytes");
+            if (round > 0) {
+                assertTrue(bytes < 1024);
+            }
+        }
+        List<Integer> list = new ArrayList<>();
+        instance.add(_values[0], _values[1], _values[2]);
+        assertEquals(3, instance.drainTo(list));
+        assertTrue(list.get(0) <= list.get(1) && list.get(1) <= list.get(2));
+    }
+
+}
@@ -23,7 +23,10 @@
  */
 package org.binaryheap.java;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -141,4 +144,118 @@ public class BinaryMaxHeapTest {
         assertEquals(pq.remove(), instance.remove());
     }
 
+    /**
+     * Test of poll method, of class BinaryMaxHeap.
+     */
+    @Test
+    public void testPoll() {
+        System.out.println("poll");
+        Comparator<Integer> c = (Integer i1, Integer i2) -> {
+            Integer v1 = i1;
+            Integer v2 = i2;
+            return v2.compareTo(v1);
+        };
+        BinaryHeap<Integer> instance = new BinaryMaxHeap<>();
+        assertNull(instance.poll());
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance, c);
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+        assertNull(instance.poll());
+    }
+
+    /**
+     * Test of remove method of a stable heap, of class BinaryMaxHeap.
+     */
+    @Test
+    public void testRemoveStable() {
+        System.out.println("removeStable");
+        final int levels = 8;
+        Comparator<int[]> c = (int[] a, int[] b) -> Integer.compare(a[0], b[0]);
+        BinaryHeap<int[]> instance = new BinaryMaxHeap<>(2, c, true);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(new int[]{TestUtil.generateRandomValue() & (levels - 1), i});
+        }
+        int[] previous = instance.remove();
+        while (!instance.isEmpty()) {
+            int[] current = instance.remove();
+            assertTrue(current[0] <= previous[0]);
+            if (current[0] == previous[0]) {
+                assertTrue(current[1] > previous[1]);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * Test of setInsertionBuffer method, of class BinaryMaxHeap.
+     */
+    @Test
+    public void testInsertionBuffer() {
+        System.out.println("insertionBuffer");
+        Comparator<Integer> c = (Integer i1, Integer i2) -> {
+            Integer v1 = i1;
+            Integer v2 = i2;
+            return v2.compareTo(v1);
+        };
+        BinaryHeap<Integer> instance = new BinaryMaxHeap<>();
+        instance.setInsertionBuffer(HEAP_SIZE / 2, 32);
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance, c);
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+    }
+
+    /**
+     * Test of removeIf method, of class BinaryMaxHeap.
+     */
+    @Test
+    public void testRemoveIf() {
+        System.out.println("removeIf");
+        Comparator<Integer> c = (Integer i1, Integer i2) -> {
+            Integer v1 = i1;
+            Integer v2 = i2;
+            return v2.compareTo(v1);
+        };
+        BinaryHeap<Integer> instance = new BinaryMaxHeap<>();
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance, c);
+        assertFalse(instance.removeIf(value -> false));
+        assertTrue(instance.removeIf(value -> (value & 1) == 0));
+        pq.removeIf(value -> (value & 1) == 0);
+        assertEquals(pq.size(), instance.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+    }
+
+    /**
+     * Test of remove, removeAll and retainAll methods with elements, of class
+     * BinaryMaxHeap.
+     */
+    @Test
+    public void testRemoveObject() {
+        System.out.println("removeObject");
+        BinaryHeap<Integer> instance = new BinaryMaxHeap<>(HEAP_SIZE, true);
+        PriorityQueue<Integer> pq = new PriorityQueue<>(Comparator.reverseOrder());
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = Math.floorMod(TestUtil.generateRandomValue(), HEAP_SIZE / 4);
+            instance.add(value);
+            pq.add(value);
+        }
+        for (int i = 0; i < HEAP_SIZE / 4; i += 5) {
+            assertEquals(pq.remove(i), instance.remove(i));
+        }
+        List<Integer> values = Arrays.asList(1, 2, 3, 5, 8, 13, 21, 34, 55, 89, 144);
+        assertEquals(pq.removeAll(values), instance.removeAll(values));
+        values = new ArrayList<>();
+        for (int i = 0; i < HEAP_SIZE / 4; i += 2) {
+            values.add(i);
+        }
+        assertEquals(pq.retainAll(values), instance.retainAll(values));
+        assertEquals(pq.size(), instance.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+    }
+
 }
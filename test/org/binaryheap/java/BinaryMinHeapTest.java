@@ -23,8 +23,15 @@
  */
 package org.binaryheap.java;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
+import java.util.Queue;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -89,6 +96,152 @@ public class BinaryMinHeapTest {
         assertEquals(pq.peek(), instance.peek());
     }
 
+    /**
+     * Test of add method with an initial size of zero, of class BinaryMinHeap.
+     */
+    @Test
+    public void testAddZeroSize() {
+        System.out.println("addZeroSize");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>(0);
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance);
+        assertEquals(pq.size(), instance.size());
+        assertEquals(pq.peek(), instance.peek());
+    }
+
+    /**
+     * Test of contains and indexOf methods, of class BinaryMinHeap.
+     */
+    @Test
+    public void testContains() {
+        System.out.println("contains");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(i);
+        }
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            assertTrue(instance.contains(i));
+            assertTrue(instance.indexOf(i) > 0);
+        }
+        assertFalse(instance.contains(HEAP_SIZE));
+        assertEquals(-1, instance.indexOf(HEAP_SIZE));
+    }
+
+    /**
+     * Test of remove method with an element, of class BinaryMinHeap.
+     */
+    @Test
+    public void testRemoveObject() {
+        System.out.println("removeObject");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        instance.add(1, 2, 3);
+        assertTrue(instance.remove((Object) 2));
+        assertFalse(instance.remove((Object) 2));
+        assertEquals(2, instance.size());
+
+        instance = new BinaryMinHeap<>();
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance);
+        instance.setInsertionBuffer(HEAP_SIZE + 1, HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE / 4; ++i) {
+            int value = TestUtil.generateRandomValue();
+            instance.add(value);
+            pq.add(value);
+        }
+        Integer[] values = pq.toArray(new Integer[0]);
+        for (int i = 0; i < values.length; i += 2) {
+            assertEquals(pq.remove(values[i]), instance.remove(values[i]));
+        }
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+        assertTrue(instance.isEmpty());
+    }
+
+    /**
+     * Test of removeAll and retainAll methods, of class BinaryMinHeap.
+     */
+    @Test
+    public void testRemoveAllRetainAll() {
+        System.out.println("removeAll");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        PriorityQueue<Integer> pq = new PriorityQueue<>();
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = Math.floorMod(TestUtil.generateRandomValue(), HEAP_SIZE / 4);
+            instance.add(value);
+            pq.add(value);
+        }
+        List<Integer> removed = new ArrayList<>();
+        List<Integer> retained = new ArrayList<>();
+        for (int i = 0; i < HEAP_SIZE / 4; ++i) {
+            (i % 3 == 0 ? removed : retained).add(i);
+        }
+        assertEquals(pq.removeAll(removed), instance.removeAll(removed));
+        assertEquals(pq.size(), instance.size());
+        retained.remove(Integer.valueOf(1));
+        assertEquals(pq.retainAll(retained), instance.retainAll(retained));
+        assertEquals(pq.size(), instance.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+    }
+
+    /**
+     * Test of remove method of the iterator, of class BinaryMinHeap.
+     */
+    @Test
+    public void testIteratorRemove() {
+        System.out.println("iteratorRemove");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance);
+        List<Integer> visited = new ArrayList<>();
+        for (Iterator<Integer> it = instance.iterator(); it.hasNext();) {
+            Integer value = it.next();
+            visited.add(value);
+            if (value % 2 == 0) {
+                it.remove();
+                assertTrue(pq.remove(value));
+            }
+        }
+        assertEquals(HEAP_SIZE, visited.size());
+        assertEquals(pq.size(), instance.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+    }
+
+    /**
+     * Test of clear method, of class BinaryMinHeap.
+     */
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        TestUtil.addRandomValues(HEAP_SIZE, instance);
+        instance.clear();
+        assertTrue(instance.isEmpty());
+        assertArrayEquals(new Object[0], instance.toArray());
+        instance.add(1);
+        assertEquals(Integer.valueOf(1), instance.poll());
+        assertNull(instance.poll());
+    }
+
+    /**
+     * Test of equals and hashCode methods, of class BinaryMinHeap.
+     */
+    @Test
+    public void testEquals() {
+        System.out.println("equals");
+        BinaryHeap<Integer> first = new BinaryMinHeap<>(1);
+        BinaryHeap<Integer> second = new BinaryMinHeap<>(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            first.add(i);
+            second.add(i);
+        }
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        second.poll();
+        assertNotEquals(first, second);
+    }
+
     /**
      * Test of remove method, of class BinaryMinHeap.
      */
@@ -116,4 +269,247 @@ public class BinaryMinHeapTest {
         assertEquals(pq.remove(), instance.remove());
     }
 
+    /**
+     * Test of poll method, of class BinaryMinHeap.
+     */
+    @Test
+    public void testPoll() {
+        System.out.println("poll");
+        Queue<Integer> instance = new BinaryMinHeap<>();
+        assertNull(instance.poll());
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, (BinaryHeap<Integer>) instance);
+        while (!pq.isEmpty()) {
+            assertEquals(pq.poll(), instance.poll());
+        }
+        assertNull(instance.poll());
+    }
+
+    /**
+     * Test of remove method on an empty heap, of class BinaryMinHeap.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveEmpty() {
+        System.out.println("removeEmpty");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        instance.remove();
+    }
+
+    /**
+     * Test of iterator method, of class BinaryMinHeap.
+     */
+    @Test
+    public void testIterator() {
+        System.out.println("iterator");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance);
+        long sum = 0, expectedSum = 0;
+        int count = 0;
+        for (Integer value : instance) {
+            sum += value;
+            ++count;
+        }
+        for (Integer value : pq) {
+            expectedSum += value;
+        }
+        assertEquals(pq.size(), count);
+        assertEquals(expectedSum, sum);
+        assertEquals(expectedSum, instance.stream().mapToLong(Integer::longValue).sum());
+        assertEquals(expectedSum, instance.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+
+    /**
+     * Test of iterator method after modifying the heap, of class
+     * BinaryMinHeap.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorFailFast() {
+        System.out.println("iteratorFailFast");
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        TestUtil.addRandomValues(HEAP_SIZE, instance);
+        Iterator<Integer> iter = instance.iterator();
+        iter.next();
+        instance.poll();
+        iter.next();
+    }
+
+    /**
+     * Test of remove method of a stable heap, of class BinaryMinHeap.
+     */
+    @Test
+    public void testRemoveStable() {
+        System.out.println("removeStable");
+        final int levels = 8;
+        Comparator<int[]> c = (int[] a, int[] b) -> Integer.compare(a[0], b[0]);
+        BinaryHeap<int[]> instance = new BinaryMinHeap<>(2, c, true);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(new int[]{TestUtil.generateRandomValue() & (levels - 1), i});
+        }
+        int[] previous = instance.remove();
+        while (!instance.isEmpty()) {
+            int[] current = instance.remove();
+            assertTrue(current[0] >= previous[0]);
+            if (current[0] == previous[0]) {
+                assertTrue(current[1] > previous[1]);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * Test of setInsertionBuffer method, of class BinaryMinHeap.
+     */
+    @Test
+    public void testInsertionBuffer() {
+        System.out.println("insertionBuffer");
+        final int[][] thresholds = {{1, 1}, {64, 1}, {64, 65}, {HEAP_SIZE, 256}};
+        for (int[] threshold : thresholds) {
+            BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+            instance.setInsertionBuffer(threshold[0], threshold[1]);
+            PriorityQueue<Integer> pq = new PriorityQueue<>();
+            for (int i = 0; i < HEAP_SIZE; ++i) {
+                int value = TestUtil.generateRandomValue();
+                instance.add(value);
+                pq.add(value);
+                if (i % 100 == 0) {
+                    assertEquals(pq.peek(), instance.peek());
+                    assertEquals(pq.poll(), instance.poll());
+                }
+            }
+            assertEquals(pq.size(), instance.size());
+            while (!pq.isEmpty()) {
+                assertEquals(pq.poll(), instance.poll());
+            }
+        }
+    }
+
+    /**
+     * Test of setInsertionBuffer method of a stable heap, of class
+     * BinaryMinHeap.
+     */
+    @Test
+    public void testInsertionBufferStable() {
+        System.out.println("insertionBufferStable");
+        Comparator<int[]> c = (int[] a, int[] b) -> Integer.compare(a[0], b[0]);
+        BinaryHeap<int[]> instance = new BinaryMinHeap<>(2, c, true);
+        instance.setInsertionBuffer(HEAP_SIZE, HEAP_SIZE / 4);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(new int[]{TestUtil.generateRandomValue() & 7, i});
+        }
+        int[] previous = instance.remove();
+        while (!instance.isEmpty()) {
+            int[] current = instance.remove();
+            assertTrue(current[0] >= previous[0]);
+            if (current[0] == previous[0]) {
+                assertTrue(current[1] > previous[1]);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * Test of addListener method, of class BinaryMinHeap.
+     */
+    @Test
+    public void testListener() {
+        System.out.println("listener");
+        final List<Integer> tops = new ArrayList<>();
+        final List<Integer> removed = new ArrayList<>();
+        HeapListener<Integer> listener = new HeapListener<Integer>() {
+            @Override
+            public void topChanged(Integer oldTop, Integer newTop) {
+                tops.add(newTop);
+            }
+
+            @Override
+            public void elementRemoved(Integer element) {
+                removed.add(element);
+            }
+        };
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        instance.addListener(listener);
+        List<Integer> expectedTops = new ArrayList<>();
+        List<Integer> expectedRemoved = new ArrayList<>();
+        PriorityQueue<Integer> pq = new PriorityQueue<>();
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            Integer value = TestUtil.generateRandomValue();
+            instance.add(value);
+            if (pq.isEmpty() || value < pq.peek()) {
+                expectedTops.add(value);
+            }
+            pq.add(value);
+            if ((i & 3) == 0) {
+                expectedRemoved.add(instance.poll());
+                pq.poll();
+                expectedTops.add(pq.peek());
+            }
+        }
+        assertEquals(expectedTops, tops);
+        assertEquals(expectedRemoved, removed);
+
+        assertTrue(instance.removeListener(listener));
+        assertFalse(instance.removeListener(listener));
+        instance.poll();
+        assertEquals(expectedRemoved.size(), removed.size());
+    }
+
+    /**
+     * Test of addListener method with removals of arbitrary elements, of class
+     * BinaryMinHeap.
+     */
+    @Test
+    public void testListenerRemovals() {
+        System.out.println("listenerRemovals");
+        final List<String> events = new ArrayList<>();
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        instance.addListener(new HeapListener<Integer>() {
+            @Override
+            public void topChanged(Integer oldTop, Integer newTop) {
+                events.add(oldTop + "->" + newTop);
+            }
+
+            @Override
+            public void elementRemoved(Integer element) {
+                events.add("-" + element);
+            }
+        });
+        instance.add(5, 3, 7, 9, 4, 8);
+        assertTrue(instance.remove((Object) 7));
+        assertTrue(instance.removeIf(x -> x == 5 || x == 3));
+        Iterator<Integer> it = instance.iterator();
+        while (it.hasNext()) {
+            if (it.next() == 9) {
+                it.remove();
+            }
+        }
+        instance.clear();
+        assertEquals(Arrays.asList("null->5", "5->3", "-7", "-3", "-5", "3->4",
+                "-9", "-4", "-8", "4->null"), events);
+    }
+
+    /**
+     * Test of addListener method with an insertion buffer, of class
+     * BinaryMinHeap.
+     */
+    @Test
+    public void testListenerBuffered() {
+        System.out.println("listenerBuffered");
+        final List<Integer> tops = new ArrayList<>();
+        BinaryHeap<Integer> instance = new BinaryMinHeap<>();
+        instance.setInsertionBuffer(HEAP_SIZE + 1, 64);
+        instance.addListener(new HeapListener<Integer>() {
+            @Override
+            public void topChanged(Integer oldTop, Integer newTop) {
+                tops.add(newTop);
+            }
+        });
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance);
+        assertTrue(tops.isEmpty()); // nothing has been merged yet
+        assertEquals(pq.peek(), instance.peek());
+        assertEquals(1, tops.size());
+        assertEquals(pq.peek(), tops.get(0));
+        instance.clear();
+        assertEquals(2, tops.size());
+        assertNull(tops.get(1));
+    }
+
 }
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class BottomUpMaxHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public BottomUpMaxHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of remove method, of class BottomUpMaxHeap.
+     */
+    @Test
+    public void testRemove() {
+        System.out.println("BOTTOM UP MAX HEAP");
+        System.out.println("remove");
+        Comparator<Integer> c = Comparator.reverseOrder();
+        BinaryHeap<Integer> instance = new BottomUpMaxHeap<>();
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance, c);
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.remove());
+        }
+    }
+
+    /**
+     * Test of comparisons method, of class BottomUpMaxHeap.
+     */
+    @Test
+    public void testComparisons() {
+        System.out.println("comparisons");
+        final long[] count = new long[1];
+        Comparator<Integer> c = (Integer i1, Integer i2) -> {
+            ++count[0];
+            return i1.compareTo(i2);
+        };
+        BottomUpMaxHeap<Integer> instance = new BottomUpMaxHeap<>(c);
+        BinaryHeap<Integer> reference = new BinaryMaxHeap<>(c);
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE * 8; ++i) {
+            int value = rand.nextInt();
+            instance.add(value);
+            reference.add(value);
+        }
+        instance.resetComparisons();
+        count[0] = 0;
+        for (int i = 0; i < HEAP_SIZE * 8; ++i) {
+            reference.remove();
+        }
+        final long expected = count[0];
+        count[0] = 0;
+        for (int i = 0; i < HEAP_SIZE * 8; ++i) {
+            instance.remove();
+        }
+        assertEquals(count[0], instance.comparisons());
+        System.out.println("BinaryMaxHeap: " + expected + ", BottomUpMaxHeap: " + count[0]);
+        assertTrue(instance.comparisons() < expected * 3 / 4);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class BottomUpMinHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public BottomUpMinHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of remove method, of class BottomUpMinHeap.
+     */
+    @Test
+    public void testRemove() {
+        System.out.println("BOTTOM UP MIN HEAP");
+        System.out.println("remove");
+        BinaryHeap<Integer> instance = new BottomUpMinHeap<>();
+        PriorityQueue<Integer> pq = new PriorityQueue<>();
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt(HEAP_SIZE / 2);
+            instance.add(value);
+            pq.add(value);
+            if ((i & 3) == 0) {
+                assertEquals(pq.remove(), instance.remove());
+            }
+        }
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.remove());
+        }
+    }
+
+    /**
+     * Test of remove method after rebuilding the heap, of class
+     * BottomUpMinHeap.
+     */
+    @Test
+    public void testRemoveHeapified() {
+        System.out.println("removeHeapified");
+        Comparator<Integer> c = Comparator.reverseOrder();
+        BinaryHeap<Integer> instance = new BottomUpMinHeap<>(c);
+        instance.setInsertionBuffer(HEAP_SIZE, 1);
+        PriorityQueue<Integer> pq = TestUtil.addRandomValues(HEAP_SIZE, instance, c);
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.remove());
+        }
+    }
+
+}
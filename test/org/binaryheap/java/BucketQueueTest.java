@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class BucketQueueTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public BucketQueueTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of poll method, of class BucketQueue.
+     */
+    @Test
+    public void testPoll() {
+        System.out.println("BUCKET QUEUE");
+        System.out.println("poll");
+        for (int levels : new int[]{1, 16, 64, 65, 256, BucketQueue.MAX_LEVELS}) {
+            BucketQueue<int[]> instance = new BucketQueue<>(levels, e -> e[0]);
+            PriorityQueue<int[]> pq = new PriorityQueue<>(
+                    Comparator.<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+            for (int i = 0; i < HEAP_SIZE; ++i) {
+                int[] element = {Math.floorMod(TestUtil.generateRandomValue(), levels), i};
+                instance.add(element);
+                pq.add(element);
+                if (i % 3 == 0) {
+                    assertEquals(pq.peek()[0], instance.peekLevel());
+                    assertSame(pq.poll(), instance.poll());
+                }
+            }
+            assertEquals(pq.size(), instance.size());
+            while (!pq.isEmpty()) {
+                assertSame(pq.peek(), instance.peek());
+                assertSame(pq.poll(), instance.poll());
+            }
+            assertNull(instance.poll());
+            assertEquals(-1, instance.peekLevel());
+        }
+    }
+
+    /**
+     * Test of iterator method, of class BucketQueue.
+     */
+    @Test
+    public void testIterator() {
+        System.out.println("iterator");
+        BucketQueue<Integer> instance = new BucketQueue<>(300, i -> i % 300);
+        for (int i = HEAP_SIZE - 1; i >= 0; --i) {
+            instance.add(i);
+        }
+        List<Integer> iterated = instance.toList();
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(HEAP_SIZE, instance.drainTo(drained));
+        assertEquals(drained, iterated);
+        assertTrue(instance.isEmpty());
+
+        instance.add(1, 2);
+        Iterator<Integer> it = instance.iterator();
+        it.next();
+        instance.add(3);
+        try {
+            it.next();
+            fail("iterator did not detect modification");
+        } catch (ConcurrentModificationException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test of clear method, of class BucketQueue.
+     */
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        BucketQueue<Integer> instance = new BucketQueue<>(128, i -> i % 128);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(i);
+        }
+        instance.clear();
+        assertTrue(instance.isEmpty());
+        assertNull(instance.peek());
+        instance.add(200);
+        assertEquals(Integer.valueOf(200), instance.poll());
+    }
+
+    /**
+     * Test of add method with a priority out of range, of class BucketQueue.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddOutOfRange() {
+        System.out.println("addOutOfRange");
+        BucketQueue<Integer> instance = new BucketQueue<>(16, Integer::intValue);
+        instance.add(16);
+    }
+}
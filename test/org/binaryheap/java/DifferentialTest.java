@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class DifferentialTest {
+
+    /**
+     * The number of random operations per variant, which can be raised for
+     * longer runs, e.g. {@code ant -Dtest-sys-prop.binaryheap.fuzz.ops=1000000 test}.
+     */
+    private static final int OPERATIONS = Integer.getInteger("binaryheap.fuzz.ops", 20_000);
+
+    public DifferentialTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of all heaps against {@link PriorityQueue}.
+     */
+    @Test
+    public void testVariants() {
+        System.out.println("DIFFERENTIAL");
+        System.out.println("variants");
+        final List<HeapFuzzer.Variant> variants = HeapFuzzer.variants();
+        for (int i = 0; i < variants.size(); ++i) {
+            HeapFuzzer.run(variants.get(i), TestUtil.SEED + i, OPERATIONS);
+        }
+    }
+
+    /**
+     * Test of WindowedHeap against a model which removes expired elements.
+     */
+    @Test
+    public void testWindowed() {
+        System.out.println("windowed");
+        HeapFuzzer.runWindowed(TestUtil.SEED, OPERATIONS);
+    }
+
+    /**
+     * Test of SoftHeap for lost elements and its error bound.
+     */
+    @Test
+    public void testSoft() {
+        System.out.println("soft");
+        HeapFuzzer.runSoft(0.1, TestUtil.SEED, OPERATIONS);
+        HeapFuzzer.runSoft(0.01, TestUtil.SEED + 1, OPERATIONS);
+    }
+
+    /**
+     * Test of ShardedHeap with several shards for lost elements and its error
+     * bound.
+     */
+    @Test
+    public void testSharded() {
+        System.out.println("sharded");
+        HeapFuzzer.runSharded(2, TestUtil.SEED, OPERATIONS);
+        HeapFuzzer.runSharded(8, TestUtil.SEED + 1, OPERATIONS);
+    }
+
+    /**
+     * Test of stable heaps against a {@link PriorityQueue} which breaks ties
+     * by insertion order, comparing the identity of the removed elements.
+     */
+    @Test
+    public void testStable() {
+        System.out.println("stable");
+        final Comparator<int[]> byKey = Comparator.comparingInt(e -> e[0]);
+        final Comparator<int[]> byKeyThenSeq = byKey.thenComparingInt(e -> e[1]);
+        stable(new BinaryMinHeap<>(0, byKey, true), byKeyThenSeq, TestUtil.SEED);
+        stable(new BinaryMaxHeap<>(0, byKey.reversed(), true), byKeyThenSeq, TestUtil.SEED + 1);
+    }
+
+    private static void stable(BinaryHeap<int[]> heap, Comparator<int[]> order, long seed) {
+        final Random rand = new Random(seed);
+        final PriorityQueue<int[]> expected = new PriorityQueue<>(order);
+        int seq = 0;
+        for (int op = 0; op < OPERATIONS; ++op) {
+            final String context = "seed=" + seed + " op=" + op;
+            final int choice = rand.nextInt(10);
+            if (choice < 5) {
+                final int[] e = {rand.nextInt(16), seq++};
+                heap.add(e);
+                expected.add(e);
+            } else if (choice < 9) {
+                assertSame(context, expected.poll(), heap.poll());
+            } else {
+                final int capacity = rand.nextBoolean() ? 0 : 1 + rand.nextInt(32);
+                heap.setInsertionBuffer(capacity, 1 + rand.nextInt(64));
+            }
+        }
+        while (!expected.isEmpty()) {
+            assertSame("seed=" + seed, expected.poll(), heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
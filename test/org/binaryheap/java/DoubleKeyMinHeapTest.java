@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class DoubleKeyMinHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public DoubleKeyMinHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of remove method, of class DoubleKeyMinHeap.
+     */
+    @Test
+    public void testRemove() {
+        System.out.println("DOUBLE KEY MIN HEAP");
+        System.out.println("remove");
+        BinaryHeap<double[]> instance = new DoubleKeyMinHeap<>(e -> e[0]);
+        PriorityQueue<double[]> pq = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        Random rand = new Random(TestUtil.SEED);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            double[] element = new double[]{rand.nextInt(HEAP_SIZE) / 8.0};
+            instance.add(element);
+            pq.add(element);
+            if ((i & 3) == 0) {
+                assertEquals(pq.remove()[0], instance.remove()[0], 0.0);
+            }
+        }
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove()[0], instance.remove()[0], 0.0);
+        }
+        assertTrue(instance.isEmpty());
+    }
+
+    /**
+     * Test of peekKey method, of class DoubleKeyMinHeap.
+     */
+    @Test
+    public void testPeekKey() {
+        System.out.println("peekKey");
+        AtomicInteger calls = new AtomicInteger();
+        DoubleKeyMinHeap<double[]> instance = new DoubleKeyMinHeap<>(2, e -> {
+            calls.incrementAndGet();
+            return e[0];
+        });
+        Random rand = new Random(TestUtil.SEED);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(new double[]{rand.nextInt(HEAP_SIZE) / 8.0});
+        }
+        while (!instance.isEmpty()) {
+            double key = instance.peekKey();
+            assertEquals(key, instance.remove()[0], 0.0);
+        }
+        assertEquals(HEAP_SIZE, calls.get()); // each key is extracted once
+    }
+
+    /**
+     * Test of remove(Object) method, of class DoubleKeyMinHeap.
+     */
+    @Test
+    public void testRemoveObject() {
+        System.out.println("remove(Object)");
+        AtomicInteger calls = new AtomicInteger();
+        DoubleKeyMinHeap<double[]> instance = new DoubleKeyMinHeap<>(2, e -> {
+            calls.incrementAndGet();
+            return e[0];
+        });
+        PriorityQueue<double[]> pq = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        List<double[]> elements = new ArrayList<>();
+        Random rand = new Random(TestUtil.SEED);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            double[] element = new double[]{rand.nextInt(HEAP_SIZE) / 8.0};
+            instance.add(element);
+            pq.add(element);
+            elements.add(element);
+        }
+        Collections.shuffle(elements, rand);
+        for (double[] element : elements.subList(0, HEAP_SIZE / 2)) {
+            assertTrue(instance.remove(element));
+            assertTrue(pq.remove(element));
+        }
+        Iterator<double[]> it = instance.iterator();
+        while (it.hasNext()) {
+            double[] element = it.next();
+            if (rand.nextBoolean()) {
+                it.remove();
+                assertTrue(pq.remove(element));
+            }
+        }
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove()[0], instance.remove()[0], 0.0);
+        }
+        assertTrue(instance.isEmpty());
+        assertEquals(HEAP_SIZE, calls.get()); // moved elements keep their keys
+    }
+
+}
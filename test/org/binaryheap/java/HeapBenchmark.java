@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of all heaps relative to a {@link PriorityQueue} and
+ * compares it against a recorded baseline. Each heap is measured in a separate
+ * JVM, so that the just-in-time compiler does not profile one heap with the
+ * calls of another. Scores are stored relative to the {@link PriorityQueue}
+ * measured in the same run, which keeps a baseline usable on another machine.
+ * In addition, {@link BucketQueue} and {@link BinaryMinHeap} are compared for
+ * several numbers of distinct priorities, and {@link SoftHeap} is measured for
+ * several error rates, whose time per operation is printed next to the sampled
+ * rank errors.
+ *
+ * <p>
+ * Run with {@code --record} to write a new baseline, otherwise the process
+ * exits with status 1 if any heap got slower than its baseline by more than
+ * the tolerance. The build script provides the targets {@code perf-baseline}
+ * and {@code perf}. The following system properties are supported:
+ * <ul>
+ * <li>{@code binaryheap.perf.baseline}: the baseline file, by default
+ * {@code perf/baseline.properties}</li>
+ * <li>{@code binaryheap.perf.tolerance}: the tolerated slowdown, by default
+ * {@code 0.2}</li>
+ * <li>{@code binaryheap.perf.size}: the number of elements held by the heap
+ * while it is measured</li>
+ * <li>{@code binaryheap.perf.ops}: the number of removals, each followed by an
+ * insertion, per round</li>
+ * <li>{@code binaryheap.perf.rounds}: the number of warm-up and of measured
+ * rounds, of which the fastest is taken</li>
+ * </ul>
+ *
+ * @author Matthias Fussenegger
+ */
+public class HeapBenchmark {
+
+    private static final String REFERENCE = "PriorityQueue";
+
+    private static final int SIZE = Integer.getInteger("binaryheap.perf.size", 1 << 16);
+
+    private static final int OPERATIONS = Integer.getInteger("binaryheap.perf.ops", 1 << 21);
+
+    private static final int ROUNDS = Integer.getInteger("binaryheap.perf.rounds", 5);
+
+    private HeapBenchmark() {
+        throw new AssertionError("Holds static members only.");
+    }
+
+    /**
+     * The numbers of distinct priorities for which {@link BucketQueue} is
+     * compared with {@link BinaryMinHeap}.
+     */
+    private static final int[] LEVELS = {16, 256, BucketQueue.MAX_LEVELS};
+
+    /**
+     * The error rates for which {@link SoftHeap} is compared with
+     * {@link BinaryMinHeap}.
+     */
+    private static final double[] EPSILONS = {0.5, 0.1, 0.01, 0.001};
+
+    private static String softHeap(double epsilon) {
+        return "SoftHeap(" + epsilon + ")";
+    }
+
+    private static List<HeapFuzzer.Variant> variants() {
+        List<HeapFuzzer.Variant> variants = new ArrayList<>();
+        variants.add(new HeapFuzzer.Variant(REFERENCE, PriorityQueue::new, null));
+        for (HeapFuzzer.Variant variant : HeapFuzzer.variants()) {
+            if (variant.getLevels() == 0) {
+                variants.add(variant);
+            }
+        }
+        for (int levels : LEVELS) {
+            variants.add(new HeapFuzzer.Variant("BinaryMinHeap[" + levels + "]",
+                    BinaryMinHeap::new, null, levels));
+            variants.add(new HeapFuzzer.Variant("BucketQueue[" + levels + "]",
+                    () -> new BucketQueue<>(levels, Integer::intValue), null, levels));
+        }
+        for (double epsilon : EPSILONS) {
+            variants.add(new HeapFuzzer.Variant(softHeap(epsilon),
+                    () -> new SoftHeap<>(epsilon), null));
+        }
+        return variants;
+    }
+
+    /**
+     * Measures a heap using the hold model, i.e. each removal is followed by
+     * an insertion, so that the size of the heap stays the same.
+     *
+     * @param factory The factory of the heap to be measured.
+     * @param levels The upper bound of the values or zero for any value.
+     * @return The fastest time of a round in nanoseconds per operation.
+     */
+    private static double measure(Supplier<Queue<Integer>> factory, int levels) {
+        final Random rand = new Random(42);
+        final Integer[] values = new Integer[SIZE + OPERATIONS];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = levels > 0 ? rand.nextInt(levels) : rand.nextInt();
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < 2 * ROUNDS; ++round) {
+            final Queue<Integer> heap = factory.get();
+            for (int i = 0; i < SIZE; ++i) {
+                heap.add(values[i]);
+            }
+            final long start = System.nanoTime();
+            for (int i = SIZE; i < values.length; ++i) {
+                heap.poll();
+                heap.add(values[i]);
+            }
+            final double nanos = (System.nanoTime() - start) / (double) OPERATIONS;
+            if (round >= ROUNDS) {
+                best = Math.min(best, nanos);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs the workload of {@link #measure(Supplier, int)} on a soft heap
+     * with a sixteenth of the operations and samples the rank errors of about
+     * 256 removals. This is done separately, since sampling takes linear time.
+     *
+     * @param epsilon The error rate of the soft heap.
+     * @return The statistics of the sampled rank errors.
+     */
+    private static RankErrorStatistics sample(double epsilon) {
+        final Random rand = new Random(42);
+        final int operations = Math.max(1, OPERATIONS / 16);
+        final SoftHeap<Integer> heap = new SoftHeap<>(epsilon);
+        heap.setRankErrorSampling(Math.max(1, operations / 256));
+        for (int i = 0; i < SIZE; ++i) {
+            heap.add(rand.nextInt());
+        }
+        for (int i = 0; i < operations; ++i) {
+            heap.poll();
+            heap.add(rand.nextInt());
+        }
+        return heap.rankErrorStatistics();
+    }
+
+    /**
+     * Prints the time per operation of the soft heaps next to their sampled
+     * rank errors, and the throughput gained over {@link BinaryMinHeap} per
+     * unit of error rate, i.e. per fraction of removals that are not exact.
+     */
+    private static void printSoftHeaps(Map<String, Double> nanos) {
+        final double exact = nanos.get("BinaryMinHeap");
+        final long insertions = SIZE + Math.max(1, OPERATIONS / 16);
+        System.out.println(String.format("%-28s %8s %8s %9s %9s %9s %9s %9s",
+                "", "ns/op", "speedup", "errorRate", "meanRank", "maxRank", "eps*n", "gain/err"));
+        for (double epsilon : EPSILONS) {
+            final double time = nanos.get(softHeap(epsilon));
+            final RankErrorStatistics stats = sample(epsilon);
+            final double gain = exact / time - 1;
+            final double errorRate = stats.getErrorRate();
+            System.out.println(String.format("%-28s %8.2f %+7.1f%% %9.3f %9.2f %9d %9d %9s",
+                    softHeap(epsilon), time, gain * 100, errorRate,
+                    stats.getMeanRankError(), stats.getMaxRankError(),
+                    (long) (epsilon * insertions),
+                    errorRate > 0 ? String.format("%.3f", gain / errorRate) : "-"));
+        }
+    }
+
+    /**
+     * Measures the specified heap in a new JVM using the same class path and
+     * system properties.
+     */
+    private static double fork(String name) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("binaryheap.perf.")) {
+                command.add("-D" + key + "=" + System.getProperty(key));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(HeapBenchmark.class.getName());
+        command.add("--measure");
+        command.add(name);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true).start();
+        String last = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                last = line;
+            }
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException("Measuring " + name + " failed: " + last);
+        }
+        return Double.parseDouble(last);
+    }
+
+    /**
+     * Runs the benchmark. Pass {@code --record} to write a new baseline.
+     *
+     * @param args The command line arguments.
+     * @throws Exception If a heap could not be measured or the baseline could
+     * not be accessed.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--measure")) {
+            for (HeapFuzzer.Variant variant : variants()) {
+                if (variant.getName().equals(args[1])) {
+                    System.out.println(measure(variant::create, variant.getLevels()));
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("Unknown heap: " + args[1]);
+        }
+        final boolean record = args.length == 1 && args[0].equals("--record");
+        final Path file = Paths.get(System.getProperty(
+                "binaryheap.perf.baseline", "perf" + File.separator + "baseline.properties"));
+        final double tolerance = Double.parseDouble(System.getProperty(
+                "binaryheap.perf.tolerance", "0.2"));
+        final Properties baseline = new Properties();
+        if (!record) {
+            if (!Files.exists(file)) {
+                System.out.println("No baseline at " + file + ", record one first.");
+                System.exit(1);
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                baseline.load(in);
+            }
+        }
+        final Properties scores = new Properties();
+        final Map<String, Double> times = new HashMap<>();
+        double reference = 0;
+        int regressions = 0;
+        for (HeapFuzzer.Variant variant : variants()) {
+            final double nanos = fork(variant.getName());
+            times.put(variant.getName(), nanos);
+            if (variant.getName().equals(REFERENCE)) {
+                reference = nanos;
+            }
+            final double score = nanos / reference;
+            scores.setProperty(variant.getName(), Double.toString(score));
+            String verdict = "";
+            final String recorded = baseline.getProperty(variant.getName());
+            if (recorded != null) {
+                final double expected = Double.parseDouble(recorded);
+                final boolean slower = score > expected * (1 + tolerance);
+                verdict = String.format("baseline %.3f%s", expected, slower ? "  REGRESSION" : "");
+                if (slower) {
+                    ++regressions;
+                }
+            } else if (!record) {
+                verdict = "no baseline";
+            }
+            System.out.println(String.format("%-28s %8.2f ns/op %8.3f  %s",
+                    variant.getName(), nanos, score, verdict));
+        }
+        printSoftHeaps(times);
+        if (record) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                scores.store(out, "Time per operation relative to " + REFERENCE);
+            }
+            System.out.println("Baseline written to " + file);
+        } else if (regressions > 0) {
+            System.out.println(regressions + " heap(s) slower than tolerated ("
+                    + (int) Math.round(tolerance * 100) + "%)");
+            System.exit(1);
+        }
+    }
+}
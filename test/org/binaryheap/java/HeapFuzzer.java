@@ -0,0 +1,466 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import static org.junit.Assert.*;
+
+/**
+ * Applies long random sequences of interleaved operations to the heaps and to
+ * a {@link PriorityQueue} and compares every observable result. All random
+ * decisions are derived from a single seed, which is part of every failure
+ * message, so that a failing sequence can be replayed exactly.
+ *
+ * <p>
+ * Besides being used by {@link DifferentialTest}, this class can be run for an
+ * arbitrary amount of time using a fresh seed per round, e.g. with the
+ * {@code fuzz} target of the build script.
+ *
+ * @author Matthias Fussenegger
+ */
+public class HeapFuzzer {
+
+    /**
+     * The range of the generated values, which is kept small on purpose, so
+     * that duplicates and successful lookups are frequent.
+     */
+    private static final int VALUE_RANGE = 256;
+
+    /**
+     * A named heap implementation together with the order its elements have
+     * to be removed in.
+     */
+    public static final class Variant {
+
+        private final String _name;
+
+        private final Supplier<Queue<Integer>> _factory;
+
+        private final Comparator<Integer> _order;
+
+        private final int _levels;
+
+        public Variant(String name, Supplier<Queue<Integer>> factory, Comparator<Integer> order) {
+            this(name, factory, order, 0);
+        }
+
+        /**
+         * Initializes a variant which only accepts values greater than or
+         * equal to zero and less than the specified number of levels.
+         *
+         * @param name The name of the variant.
+         * @param factory The factory of the heap.
+         * @param order The order the elements have to be removed in.
+         * @param levels The upper bound of the values or zero if any value is
+         * accepted.
+         */
+        public Variant(String name, Supplier<Queue<Integer>> factory, Comparator<Integer> order, int levels) {
+            _name = name;
+            _factory = factory;
+            _order = order;
+            _levels = levels;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        public Queue<Integer> create() {
+            return _factory.get();
+        }
+
+        public Comparator<Integer> getOrder() {
+            return _order;
+        }
+
+        public int getLevels() {
+            return _levels;
+        }
+    }
+
+    /**
+     * Returns all heap implementations which are expected to behave exactly
+     * like a {@link PriorityQueue}. Relaxed heaps are configured so that they
+     * do not relax the order for the sizes reached by the fuzzer.
+     *
+     * @return All variants compared by the fuzzer.
+     */
+    public static List<Variant> variants() {
+        final Comparator<Integer> natural = Comparator.naturalOrder();
+        final Comparator<Integer> reverse = Comparator.reverseOrder();
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("BinaryMinHeap", () -> new BinaryMinHeap<>(0), natural));
+        variants.add(new Variant("BinaryMinHeap(comparator)", () -> new BinaryMinHeap<>(reverse), reverse));
+        variants.add(new Variant("BinaryMinHeap(stable)", () -> new BinaryMinHeap<>(1, true), natural));
+        variants.add(new Variant("BinaryMaxHeap", () -> new BinaryMaxHeap<>(0), reverse));
+        variants.add(new Variant("BinaryMaxHeap(comparator)", () -> new BinaryMaxHeap<>(natural), reverse));
+        variants.add(new Variant("BinaryMaxHeap(stable)", () -> new BinaryMaxHeap<>(1, reverse, true), natural));
+        variants.add(new Variant("BottomUpMinHeap", () -> new BottomUpMinHeap<>(0), natural));
+        variants.add(new Variant("BottomUpMaxHeap", () -> new BottomUpMaxHeap<>(0), reverse));
+        variants.add(new Variant("LongKeyMinHeap", () -> new LongKeyMinHeap<>(1, Integer::longValue), natural));
+        variants.add(new Variant("DoubleKeyMinHeap", () -> new DoubleKeyMinHeap<>(1, Integer::doubleValue), natural));
+        variants.add(new Variant("SoftHeap", () -> new SoftHeap<>(1e-9), natural));
+        variants.add(new Variant("ShardedHeap", () -> new ShardedHeap<>(1), natural));
+        variants.add(new Variant("WindowedHeap", () -> new WindowedHeap<>(Long.MAX_VALUE, () -> 0L), natural));
+        variants.add(new Variant("BucketQueue", () -> new BucketQueue<>(VALUE_RANGE, Integer::intValue), natural, VALUE_RANGE));
+        return variants;
+    }
+
+    private HeapFuzzer() {
+        throw new AssertionError("Holds static members only.");
+    }
+
+    /**
+     * Applies the specified number of random operations to a new instance of
+     * the variant and to a {@link PriorityQueue}.
+     *
+     * @param variant The variant to be tested.
+     * @param seed The seed of the operation sequence.
+     * @param operations The number of operations to be applied.
+     */
+    public static void run(Variant variant, long seed, int operations) {
+        final Random rand = new Random(seed);
+        final Queue<Integer> heap = variant.create();
+        final PriorityQueue<Integer> expected = new PriorityQueue<>(variant.getOrder());
+        final BinaryHeap<Integer> binary = heap instanceof BinaryHeap
+                ? (BinaryHeap<Integer>) heap : null;
+        for (int op = 0; op < operations; ++op) {
+            final String context = variant.getName() + " seed=" + seed + " op=" + op;
+            final int choice = rand.nextInt(100);
+            if (choice < 40) {
+                final Integer value = rand.nextInt(VALUE_RANGE);
+                assertTrue(context, heap.add(value));
+                expected.add(value);
+            } else if (choice < 44) {
+                final Integer[] values = new Integer[rand.nextInt(64)];
+                for (int i = 0; i < values.length; ++i) {
+                    values[i] = rand.nextInt(VALUE_RANGE);
+                }
+                final int offset = values.length > 0 ? rand.nextInt(values.length) : 0;
+                final int length = values.length - offset;
+                if (binary != null) {
+                    binary.addAll(values, offset, length);
+                } else {
+                    heap.addAll(Arrays.asList(values).subList(offset, offset + length));
+                }
+                expected.addAll(Arrays.asList(values).subList(offset, offset + length));
+            } else if (choice < 74) {
+                assertEquals(context, expected.poll(), heap.poll());
+            } else if (choice < 80) {
+                assertEquals(context, expected.peek(), heap.peek());
+            } else if (choice < 85) {
+                final Integer value = rand.nextInt(VALUE_RANGE);
+                assertEquals(context, expected.contains(value), heap.contains(value));
+                if (binary != null) {
+                    final int index = binary.indexOf(value);
+                    assertEquals(context, expected.contains(value), index > 0);
+                }
+            } else if (choice < 87) {
+                if (expected.isEmpty()) {
+                    try {
+                        heap.remove();
+                        fail(context + ": remove() of an empty heap returned");
+                    } catch (NoSuchElementException ex) {
+                        // expected
+                    }
+                } else {
+                    assertEquals(context, expected.remove(), heap.remove());
+                }
+            } else if (choice < 89) {
+                assertSameElements(context, expected, heap);
+            } else if (choice < 90 && binary != null) {
+                final int divisor = 2 + rand.nextInt(8);
+                final boolean removed = binary.removeIf(e -> e % divisor == 0);
+                assertEquals(context, expected.removeIf(e -> e % divisor == 0), removed);
+            } else if (choice < 91 && binary != null) {
+                final int max = rand.nextInt(32);
+                List<Integer> drained = new ArrayList<>();
+                assertEquals(context, Math.min(max, expected.size()), binary.drainTo(drained, max));
+                for (Integer e : drained) {
+                    assertEquals(context, expected.poll(), e);
+                }
+            } else if (choice < 92 && binary != null) {
+                final int capacity = rand.nextInt(3) == 0 ? 0 : 1 + rand.nextInt(64);
+                binary.setInsertionBuffer(capacity, 1 + rand.nextInt(128));
+            } else if (choice < 94 && binary != null) {
+                final Integer value = rand.nextInt(VALUE_RANGE);
+                assertEquals(context, expected.remove(value), heap.remove(value));
+            } else if (choice < 95 && binary != null) {
+                final int divisor = 2 + rand.nextInt(8);
+                final List<Integer> removed = new ArrayList<>();
+                for (Iterator<Integer> it = heap.iterator(); it.hasNext();) {
+                    final Integer e = it.next();
+                    if (e % divisor == 0) {
+                        it.remove();
+                        removed.add(e);
+                    }
+                }
+                for (Integer e : removed) {
+                    assertTrue(context, expected.remove(e));
+                }
+                assertSameElements(context, expected, heap);
+            } else if (choice < 96 && rand.nextInt(10) == 0) {
+                heap.clear();
+                expected.clear();
+            } else {
+                assertEquals(context, expected.size(), heap.size());
+                assertEquals(context, expected.isEmpty(), heap.isEmpty());
+            }
+        }
+        final String context = variant.getName() + " seed=" + seed;
+        assertEquals(context, expected.size(), heap.size());
+        while (!expected.isEmpty()) {
+            assertEquals(context, expected.poll(), heap.poll());
+        }
+        assertNull(context, heap.poll());
+        assertTrue(context, heap.isEmpty());
+    }
+
+    private static void assertSameElements(String context, Queue<Integer> expected, Queue<Integer> heap) {
+        final Object[] want = expected.toArray();
+        final Object[] iterated = new Object[heap.size()];
+        int i = 0;
+        for (Integer e : heap) {
+            assertTrue(context, i < iterated.length);
+            iterated[i++] = e;
+        }
+        assertEquals(context, iterated.length, i);
+        final Object[] copied = heap.toArray();
+        Arrays.sort(want);
+        Arrays.sort(iterated);
+        Arrays.sort(copied);
+        assertArrayEquals(context, want, iterated);
+        assertArrayEquals(context, want, copied);
+    }
+
+    /**
+     * Returns a distinct value with a random key in the upper half, so that
+     * the relaxed heaps can be checked for lost or duplicated elements.
+     */
+    private static long distinct(Random rand, int sequence) {
+        return (long) rand.nextInt(VALUE_RANGE) << 32 | sequence;
+    }
+
+    /**
+     * Applies random additions, removals and clock advances to a
+     * {@link WindowedHeap} and to a model which removes expired elements
+     * before each operation.
+     *
+     * @param seed The seed of the operation sequence.
+     * @param operations The number of operations to be applied.
+     */
+    public static void runWindowed(long seed, int operations) {
+        final Random rand = new Random(seed);
+        final long window = 1 + rand.nextInt(1000);
+        final long[] now = {0};
+        final WindowedHeap<Long> heap = new WindowedHeap<>(window, () -> now[0]);
+        final TreeMap<Long, Long> expected = new TreeMap<>(); // value to timestamp
+        long expired = 0;
+        for (int op = 0; op < operations; ++op) {
+            final String context = "WindowedHeap seed=" + seed + " op=" + op;
+            final int choice = rand.nextInt(100);
+            if (choice < 20) {
+                now[0] += rand.nextInt((int) window / 4 + 1);
+            }
+            for (Iterator<Long> it = expected.values().iterator(); it.hasNext();) {
+                if (now[0] - it.next() >= window) {
+                    it.remove();
+                    ++expired;
+                }
+            }
+            if (choice < 60) {
+                final long value = distinct(rand, op);
+                final long timestamp = rand.nextBoolean() ? now[0] : now[0] - rand.nextInt((int) window);
+                heap.add(value, timestamp);
+                if (now[0] - timestamp >= window) {
+                    ++expired;
+                } else {
+                    expected.put(value, timestamp);
+                }
+            } else if (choice < 85) {
+                final Map.Entry<Long, Long> first = expected.pollFirstEntry();
+                assertEquals(context, first != null ? first.getKey() : null, heap.poll());
+            } else if (choice < 92) {
+                assertEquals(context, expected.isEmpty() ? null : expected.firstKey(), heap.peek());
+            } else if (choice < 95) {
+                final List<Long> elements = new ArrayList<>();
+                for (Long e : heap) {
+                    elements.add(e);
+                }
+                Collections.sort(elements);
+                assertEquals(context, new ArrayList<>(expected.keySet()), elements);
+            } else if (choice < 96 && rand.nextInt(10) == 0) {
+                heap.clear();
+                expected.clear();
+            } else {
+                assertEquals(context, expected.size(), heap.size());
+                assertEquals(context, expired, heap.getExpiredCount());
+            }
+        }
+    }
+
+    /**
+     * Applies random additions and removals to a {@link SoftHeap} and checks
+     * that no element is lost or duplicated and that each removed element is
+     * preceded by at most {@code epsilon * n} remaining elements, where n is
+     * the number of elements added so far. Only corrupted elements can precede
+     * a removed one, so this is the guarantee of the soft heap.
+     *
+     * @param epsilon The error rate of the soft heap.
+     * @param seed The seed of the operation sequence.
+     * @param operations The number of operations to be applied.
+     */
+    public static void runSoft(double epsilon, long seed, int operations) {
+        final Random rand = new Random(seed);
+        final SoftHeap<Long> heap = new SoftHeap<>(epsilon);
+        final TreeSet<Long> expected = new TreeSet<>();
+        int added = 0;
+        for (int op = 0; op < operations; ++op) {
+            final String context = "SoftHeap(" + epsilon + ") seed=" + seed + " op=" + op;
+            final int choice = rand.nextInt(100);
+            if (choice < 55) {
+                final long value = distinct(rand, op);
+                heap.add(value);
+                expected.add(value);
+                ++added;
+            } else if (choice < 97) {
+                final Long peeked = heap.peek();
+                final Long polled = heap.poll();
+                assertEquals(context, peeked, polled);
+                if (polled == null) {
+                    assertTrue(context, expected.isEmpty());
+                } else {
+                    assertTrue(context, expected.remove(polled));
+                    final int rank = expected.headSet(polled).size();
+                    assertTrue(context + ": rank error " + rank, rank <= epsilon * added);
+                }
+            } else {
+                assertEquals(context, expected.size(), heap.size());
+            }
+        }
+        final String context = "SoftHeap(" + epsilon + ") seed=" + seed;
+        for (Long e = heap.poll(); e != null; e = heap.poll()) {
+            assertTrue(context, expected.remove(e));
+        }
+        assertTrue(context, expected.isEmpty());
+    }
+
+    /**
+     * Applies random additions and removals to a {@link ShardedHeap} with the
+     * specified number of shards. Elements are added to random shards, as they
+     * would be by many threads, and removed by the heap as well as from random
+     * shards, so that elements are stolen. Checks that no element
+     * is lost or duplicated, that {@link ShardedHeap#peek()} is exact without
+     * concurrent modifications, and that the mean rank error of
+     * {@link ShardedHeap#poll()} does not exceed the number of shards. The
+     * shards chosen by the heap are derived from the seed as well.
+     *
+     * @param shards The number of shards.
+     * @param seed The seed of the operation sequence.
+     * @param operations The number of operations to be applied.
+     */
+    public static void runSharded(int shards, long seed, int operations) {
+        final Random rand = new Random(seed);
+        final ShardedHeap<Long> heap = new ShardedHeap<>(shards, null, new Random(rand.nextLong()));
+        heap.setStealBatchSize(1 + rand.nextInt(64));
+        final TreeSet<Long> expected = new TreeSet<>();
+        long rankErrors = 0;
+        int polls = 0;
+        for (int op = 0; op < operations; ++op) {
+            final String context = "ShardedHeap(" + shards + ") seed=" + seed + " op=" + op;
+            final int choice = rand.nextInt(100);
+            if (choice < 55) {
+                final long value = distinct(rand, op);
+                heap.add(rand.nextInt(shards), value); // uniformly, as with many threads
+                expected.add(value);
+            } else if (choice < 90) {
+                final boolean any = rand.nextBoolean();
+                final Long polled = any ? heap.poll() : heap.poll(rand.nextInt(shards));
+                if (polled == null) {
+                    assertTrue(context, expected.isEmpty());
+                } else {
+                    assertTrue(context, expected.remove(polled));
+                    if (any) {
+                        rankErrors += expected.headSet(polled).size();
+                        ++polls;
+                    }
+                }
+            } else if (choice < 97) {
+                assertEquals(context, expected.isEmpty() ? null : expected.first(), heap.peek());
+            } else {
+                assertEquals(context, expected.size(), heap.size());
+            }
+        }
+        final String context = "ShardedHeap(" + shards + ") seed=" + seed;
+        assertTrue(context + ": mean rank error " + (double) rankErrors / polls,
+                rankErrors <= (long) shards * Math.max(polls, 1));
+        System.out.println("ShardedHeap(" + shards + ") mean rank error " + (double) rankErrors / polls);
+        for (Long e = heap.poll(); e != null; e = heap.poll()) {
+            assertTrue(context, expected.remove(e));
+        }
+        assertTrue(context, expected.isEmpty());
+    }
+
+    /**
+     * Fuzzes all variants with a new seed per round until the specified time
+     * has elapsed. The optional arguments are the duration in seconds and the
+     * number of operations per round.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        final long seconds = args.length > 0 ? Long.parseLong(args[0]) : 60;
+        final int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        final Random seeds = new Random(TestUtil.SEED);
+        final List<Variant> variants = variants();
+        long rounds = 0;
+        do {
+            Collections.shuffle(variants, seeds);
+            final long seed = seeds.nextLong();
+            for (Variant variant : variants) {
+                run(variant, seed, operations);
+            }
+            runWindowed(seed, operations);
+            runSoft(0.01, seed, operations);
+            runSharded(2 + seeds.nextInt(7), seed, operations);
+            ++rounds;
+        } while (System.nanoTime() < deadline);
+        System.out.println(rounds + " rounds of " + operations
+                + " operations per variant passed");
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class PersistentHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public PersistentHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of removeFirst method, of class PersistentHeap.
+     */
+    @Test
+    public void testRemoveFirst() {
+        System.out.println("PERSISTENT HEAP");
+        System.out.println("removeFirst");
+        Comparator<Integer> c = Comparator.reverseOrder();
+        PersistentHeap<Integer> instance = new PersistentHeap<>(c);
+        PriorityQueue<Integer> pq = new PriorityQueue<>(c);
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            instance = instance.add(value);
+            pq.add(value);
+            if ((i & 3) == 0) {
+                assertEquals(pq.remove(), instance.peek());
+                instance = instance.removeFirst();
+            }
+        }
+        assertEquals(pq.size(), instance.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.peek());
+            instance = instance.removeFirst();
+        }
+        assertTrue(instance.isEmpty());
+        assertNull(instance.peek());
+    }
+
+    /**
+     * Test of snapshots taken while updating, of class PersistentHeap.
+     */
+    @Test
+    public void testSnapshot() {
+        System.out.println("snapshot");
+        PersistentHeap<Integer> instance = new PersistentHeap<>();
+        List<Integer> values = new ArrayList<>();
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            instance = instance.add(value);
+            values.add(value);
+        }
+        final PersistentHeap<Integer> snapshot = instance;
+        for (int i = 0; i < HEAP_SIZE / 2; ++i) {
+            instance = instance.removeFirst().add(rand.nextInt());
+        }
+        List<Integer> elements = snapshot.toList();
+        Collections.sort(elements);
+        Collections.sort(values);
+        assertEquals(values, elements);
+        assertEquals(HEAP_SIZE, snapshot.size());
+        assertEquals(values.get(0), snapshot.peek());
+    }
+
+    /**
+     * Test of merge method, of class PersistentHeap.
+     */
+    @Test
+    public void testMerge() {
+        System.out.println("merge");
+        PersistentHeap<Integer> a = new PersistentHeap<>();
+        PersistentHeap<Integer> b = new PersistentHeap<>();
+        PriorityQueue<Integer> pq = new PriorityQueue<>();
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            if ((i & 1) == 0) {
+                a = a.add(value);
+            } else {
+                b = b.add(value);
+            }
+            pq.add(value);
+        }
+        PersistentHeap<Integer> instance = a.merge(b);
+        assertEquals(HEAP_SIZE, instance.size());
+        assertEquals(HEAP_SIZE / 2, a.size());
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.peek());
+            instance = instance.removeFirst();
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class ShardedHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    private static final int THREADS = 4;
+
+    public ShardedHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of poll method with a single shard, of class ShardedHeap.
+     */
+    @Test
+    public void testPollSingleShard() {
+        System.out.println("SHARDED HEAP");
+        System.out.println("pollSingleShard");
+        ShardedHeap<Integer> instance = new ShardedHeap<>(1);
+        instance.setRankErrorSampling(1);
+        List<Integer> values = new ArrayList<>();
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            instance.add(value);
+            values.add(value);
+        }
+        Collections.sort(values);
+        for (Integer value : values) {
+            assertEquals(value, instance.peek());
+            assertEquals(value, instance.poll());
+        }
+        assertNull(instance.poll());
+        assertEquals(HEAP_SIZE, instance.rankErrorStatistics().getSamples());
+        assertEquals(0, instance.rankErrorStatistics().getMaxRankError());
+    }
+
+    /**
+     * Test of poll method with a shard index, of class ShardedHeap.
+     */
+    @Test
+    public void testSteal() {
+        System.out.println("steal");
+        ShardedHeap<Integer> instance = new ShardedHeap<>(THREADS);
+        instance.setStealBatchSize(8);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            instance.add(0, i);
+        }
+        assertEquals(Integer.valueOf(0), instance.poll(1)); // steals 0..7
+        assertEquals(HEAP_SIZE - 1, instance.size());
+        for (int i = 1; i < 8; ++i) {
+            assertEquals(Integer.valueOf(i), instance.poll(1));
+        }
+        assertEquals(Integer.valueOf(8), instance.poll(0));
+        int count = 9;
+        while (instance.poll(2) != null) {
+            ++count;
+        }
+        assertEquals(HEAP_SIZE, count);
+        assertTrue(instance.isEmpty());
+    }
+
+    /**
+     * Test of concurrent add and poll methods, of class ShardedHeap.
+     *
+     * @throws Exception If a worker fails.
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        System.out.println("concurrent");
+        final ShardedHeap<Integer> instance = new ShardedHeap<>(THREADS);
+        instance.setRankErrorSampling(64);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            final int shard = t;
+            results.add(executor.submit(() -> {
+                long sum = 0, removed = 0;
+                for (int i = 0; i < HEAP_SIZE; ++i) {
+                    int value = shard * HEAP_SIZE + i;
+                    sum += value;
+                    if ((i & 1) == 0) {
+                        instance.add(value);
+                    } else {
+                        instance.add(shard, value);
+                    }
+                    Integer element = (i & 2) == 0 ? instance.poll() : instance.poll(shard);
+                    if (element != null) {
+                        sum -= element;
+                        ++removed;
+                    }
+                }
+                return new long[]{sum, removed};
+            }));
+        }
+        long sum = 0, removed = 0;
+        for (Future<long[]> result : results) {
+            long[] values = result.get();
+            sum += values[0];
+            removed += values[1];
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(THREADS * HEAP_SIZE - removed, instance.size());
+        for (Integer element : instance) {
+            sum -= element;
+        }
+        assertEquals(0, sum); // each element has been removed exactly once
+        System.out.println(instance.rankErrorStatistics());
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class SharedMemoryHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    private static final int PROCESSES = 3;
+
+    private static final long TIMEOUT_SECONDS = 60; // for all child processes
+
+    private Path _file;
+
+    public SharedMemoryHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        _file = Files.createTempFile("binaryheap", ".heap");
+        Files.delete(_file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(_file);
+    }
+
+    /**
+     * Test of poll method, of class SharedMemoryHeap.
+     */
+    @Test
+    public void testPoll() throws IOException {
+        System.out.println("SHARED MEMORY HEAP");
+        System.out.println("poll");
+        PriorityQueue<Long> pq = new PriorityQueue<>();
+        long[] entry = new long[2];
+        try (SharedMemoryHeap instance = new SharedMemoryHeap(_file, HEAP_SIZE)) {
+            for (int i = 0; i < HEAP_SIZE; ++i) {
+                long priority = TestUtil.generateRandomValue();
+                assertTrue(instance.offer(priority, priority * 2));
+                pq.add(priority);
+            }
+            assertFalse(instance.offer(0, 0));
+            assertEquals(HEAP_SIZE, instance.size());
+            while (!pq.isEmpty()) {
+                assertTrue(instance.peek(entry));
+                assertEquals(pq.peek().longValue(), entry[0]);
+                assertTrue(instance.poll(entry));
+                long priority = pq.poll();
+                assertEquals(priority, entry[0]);
+                assertEquals(priority * 2, entry[1]);
+            }
+            assertFalse(instance.poll(entry));
+            assertTrue(instance.isEmpty());
+        }
+    }
+
+    /**
+     * Test of reopening the file of a SharedMemoryHeap.
+     */
+    @Test
+    public void testReopen() throws IOException {
+        System.out.println("reopen");
+        long[] entry = new long[2];
+        try (SharedMemoryHeap instance = new SharedMemoryHeap(_file, HEAP_SIZE)) {
+            instance.offer(2, 20);
+            instance.offer(1, 10);
+        }
+        try (SharedMemoryHeap instance = new SharedMemoryHeap(_file, HEAP_SIZE)) {
+            assertEquals(2, instance.size());
+            assertTrue(instance.poll(entry));
+            assertArrayEquals(new long[]{1, 10}, entry);
+        }
+        try {
+            new SharedMemoryHeap(_file, HEAP_SIZE * 2).close();
+            fail("capacity mismatch not detected");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test of close method with several instances of the same file, of class
+     * SharedMemoryHeap.
+     */
+    @Test
+    public void testClose() throws IOException {
+        System.out.println("close");
+        long[] entry = new long[2];
+        SharedMemoryHeap first = new SharedMemoryHeap(_file, HEAP_SIZE);
+        try (SharedMemoryHeap second = new SharedMemoryHeap(_file, HEAP_SIZE)) {
+            assertTrue(first.offer(1, 10));
+            first.close();
+            first.close();
+            assertTrue(second.poll(entry));
+            assertArrayEquals(new long[]{1, 10}, entry);
+        }
+        try (SharedMemoryHeap third = new SharedMemoryHeap(_file, HEAP_SIZE)) {
+            assertTrue(third.isEmpty());
+        }
+    }
+
+    /**
+     * Test of several processes adding and removing entries of the same
+     * SharedMemoryHeap at the same time.
+     */
+    @Test
+    public void testProcesses() throws Exception {
+        System.out.println("processes");
+        final int capacity = PROCESSES * HEAP_SIZE;
+        Set<Long> expected = new HashSet<>();
+        Set<Long> polled = new HashSet<>();
+        List<Process> processes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        try (SharedMemoryHeap instance = new SharedMemoryHeap(_file, capacity)) {
+            for (int id = 0; id < PROCESSES; ++id) {
+                Path output = Files.createTempFile("binaryheap", ".out");
+                outputs.add(output);
+                processes.add(new ProcessBuilder(
+                        Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"),
+                        SharedMemoryHeapTest.class.getName(), _file.toString(),
+                        Integer.toString(capacity), Integer.toString(id),
+                        Long.toString(TestUtil.SEED + id))
+                        .redirectError(Redirect.INHERIT)
+                        .redirectOutput(output.toFile())
+                        .start());
+                for (int i = 0; i < HEAP_SIZE; ++i) {
+                    expected.add(value(id, i));
+                }
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            long[] entry = new long[2];
+            for (Process process : processes) {
+                while (process.isAlive()) {
+                    assertTrue("child process timed out", System.nanoTime() < deadline);
+                    if (instance.poll(entry)) {
+                        assertTrue(polled.add(entry[1]));
+                    }
+                }
+                assertTrue(process.waitFor(
+                        deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                assertEquals(0, process.exitValue());
+            }
+            long last = Long.MIN_VALUE;
+            while (instance.poll(entry)) {
+                assertTrue(last <= entry[0]);
+                last = entry[0];
+                assertTrue(polled.add(entry[1]));
+            }
+            for (Path output : outputs) {
+                for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+                    assertTrue(line, polled.add(Long.parseLong(line)));
+                }
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroyForcibly(); // does nothing if it has exited
+            }
+            for (Path output : outputs) {
+                Files.deleteIfExists(output);
+            }
+        }
+        assertEquals(expected, polled);
+    }
+
+    private static long value(int process, int i) {
+        return (long) process << 32 | i;
+    }
+
+    /**
+     * Adds {@link #HEAP_SIZE} entries to the heap stored in the specified file
+     * and removes an entry after every other one, printing its value.
+     *
+     * @param args The file, the capacity, the identifier of the process and
+     * the seed of the priorities.
+     * @throws IOException If the heap could not be accessed.
+     */
+    public static void main(String[] args) throws IOException {
+        final Random rand = new Random(Long.parseLong(args[3]));
+        final int id = Integer.parseInt(args[2]);
+        final StringBuilder out = new StringBuilder();
+        long[] entry = new long[2];
+        try (SharedMemoryHeap heap = new SharedMemoryHeap(
+                new File(args[0]).toPath(), Integer.parseInt(args[1]))) {
+            for (int i = 0; i < HEAP_SIZE; ++i) {
+                if (!heap.offer(rand.nextInt(HEAP_SIZE), value(id, i))) {
+                    throw new IllegalStateException("heap is full");
+                }
+                if (i % 2 == 1 && heap.poll(entry)) {
+                    out.append(entry[1]).append('\n');
+                }
+            }
+        }
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class SoftHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    public SoftHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of remove method with an error rate that is too small to corrupt
+     * any elements, of class SoftHeap.
+     */
+    @Test
+    public void testRemoveExact() {
+        System.out.println("SOFT HEAP");
+        System.out.println("removeExact");
+        Comparator<Integer> c = Comparator.reverseOrder();
+        SoftHeap<Integer> instance = new SoftHeap<>(1e-9, c);
+        PriorityQueue<Integer> pq = new PriorityQueue<>(c);
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            instance.add(value);
+            pq.add(value);
+            if ((i & 3) == 0) {
+                assertEquals(pq.peek(), instance.peek());
+                assertEquals(pq.remove(), instance.remove());
+            }
+        }
+        while (!pq.isEmpty()) {
+            assertEquals(pq.remove(), instance.remove());
+        }
+        assertNull(instance.poll());
+    }
+
+    /**
+     * Test of remove method, of class SoftHeap.
+     */
+    @Test
+    public void testRemove() {
+        System.out.println("remove");
+        SoftHeap<Integer> instance = new SoftHeap<>(0.25);
+        Map<Integer, Integer> counts = new HashMap<>();
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt(HEAP_SIZE / 4);
+            instance.add(value);
+            counts.merge(value, 1, Integer::sum);
+            if ((i & 3) == 0) {
+                counts.merge(instance.remove(), -1, Integer::sum);
+            }
+        }
+        int count = 0;
+        for (Integer value : instance) {
+            ++count;
+        }
+        assertEquals(instance.size(), count);
+        while (!instance.isEmpty()) {
+            counts.merge(instance.remove(), -1, Integer::sum);
+        }
+        for (int remaining : counts.values()) {
+            assertEquals(0, remaining); // each element is returned exactly once
+        }
+    }
+
+    /**
+     * Test of setRankErrorSampling method, of class SoftHeap.
+     */
+    @Test
+    public void testRankErrorSampling() {
+        System.out.println("rankErrorSampling");
+        SoftHeap<Integer> exact = new SoftHeap<>(1e-9);
+        SoftHeap<Integer> relaxed = new SoftHeap<>(0.5);
+        exact.setRankErrorSampling(2);
+        relaxed.setRankErrorSampling(2);
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            int value = rand.nextInt();
+            exact.add(value);
+            relaxed.add(value);
+        }
+        for (int i = 0; i < HEAP_SIZE; ++i) {
+            exact.remove();
+            relaxed.remove();
+        }
+        RankErrorStatistics stats = exact.rankErrorStatistics();
+        assertEquals(HEAP_SIZE / 2, stats.getSamples());
+        assertEquals(0, stats.getMaxRankError());
+        stats = relaxed.rankErrorStatistics();
+        assertEquals(HEAP_SIZE / 2, stats.getSamples());
+        assertTrue(stats.getMeanRankError() > 0.0);
+        assertTrue(stats.getMaxRankError() <= 0.5 * HEAP_SIZE);
+    }
+
+    /**
+     * Test of the error bound of the soft heap, i.e. that a removed element is
+     * preceded by at most epsilon times the number of insertions remaining
+     * elements.
+     */
+    @Test
+    public void testRankErrorBound() {
+        System.out.println("rankErrorBound");
+        final int insertions = HEAP_SIZE * 8;
+        for (double epsilon : new double[]{0.5, 0.1, 0.01}) {
+            SoftHeap<Integer> instance = new SoftHeap<>(epsilon);
+            instance.setRankErrorSampling(16);
+            Random rand = new Random(HEAP_SIZE);
+            for (int i = 0; i < insertions / 2; ++i) {
+                instance.add(rand.nextInt());
+            }
+            for (int i = 0; i < insertions / 2; ++i) {
+                instance.poll();
+                instance.add(rand.nextInt());
+            }
+            while (!instance.isEmpty()) {
+                instance.poll();
+            }
+            RankErrorStatistics stats = instance.rankErrorStatistics();
+            System.out.println("epsilon=" + epsilon + ", " + stats);
+            assertTrue(stats.getSamples() > 0);
+            assertTrue(stats.getMaxRankError() <= epsilon * insertions);
+        }
+    }
+
+}
@@ -33,6 +33,19 @@ import java.util.Random;
  */
 public class TestUtil {
 
+    /**
+     * The seed of all random values used by the tests. It is printed once, so
+     * that a failing run can be reproduced by passing it as system property
+     * {@code binaryheap.seed}.
+     */
+    public static final long SEED = Long.getLong("binaryheap.seed", System.nanoTime());
+
+    private static final Random RANDOM = new Random(SEED);
+
+    static {
+        System.out.println("binaryheap.seed=" + SEED);
+    }
+
     /**
      * Adds random {@link Integer} values up to a maximum size to the specified
      * heap and returns a {@link PriorityQueue} with the same values.
@@ -43,9 +56,8 @@ public class TestUtil {
      */
     public static PriorityQueue<Integer> addRandomValues(int size, BinaryHeap<Integer> heap) {
         PriorityQueue<Integer> pq = new PriorityQueue<>();
-        Random rand = new Random();
         for (int i = 0; i < size; ++i) {
-            final int next = rand.nextInt();
+            final int next = RANDOM.nextInt();
             heap.add(next);
             pq.add(next);
         }
@@ -63,9 +75,8 @@ public class TestUtil {
      */
     public static PriorityQueue<Integer> addRandomValues(int size, BinaryHeap<Integer> heap, Comparator<Integer> c) {
         PriorityQueue<Integer> pq = new PriorityQueue<>(c);
-        Random rand = new Random();
         for (int i = 0; i < size; ++i) {
-            final int next = rand.nextInt();
+            final int next = RANDOM.nextInt();
             heap.add(next);
             pq.add(next);
         }
@@ -78,6 +89,6 @@ public class TestUtil {
      * @return A random {@link Integer}.
      */
     public static int generateRandomValue() {
-        return new Random().nextInt();
+        return RANDOM.nextInt();
     }
 }
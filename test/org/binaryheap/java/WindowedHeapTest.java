@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Matthias Fussenegger
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.binaryheap.java;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Matthias Fussenegger
+ */
+public class WindowedHeapTest {
+
+    private static final int HEAP_SIZE = 2048;
+
+    private static final long WINDOW = 100;
+
+    private long _now;
+
+    public WindowedHeapTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        _now = 0;
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of expire method, of class WindowedHeap.
+     */
+    @Test
+    public void testExpire() {
+        System.out.println("WINDOWED HEAP");
+        System.out.println("expire");
+        WindowedHeap<Integer> instance = new WindowedHeap<>(WINDOW, () -> _now, Comparator.reverseOrder());
+        for (int i = 0; i < 10; ++i) {
+            instance.add(i);
+            _now += 10;
+        }
+        assertEquals(Integer.valueOf(9), instance.peek());
+        _now = 105; // elements added at 0 have expired
+        assertEquals(9, instance.size());
+        _now = 185; // only the element added at 90 is left
+        assertEquals(1, instance.size());
+        assertEquals(Integer.valueOf(9), instance.poll());
+        assertTrue(instance.isEmpty());
+        assertEquals(9, instance.getExpiredCount());
+        _now = 1000;
+        assertEquals(9, instance.getExpiredCount()); // removed one did not expire
+    }
+
+    /**
+     * Test of poll method under churn, of class WindowedHeap.
+     */
+    @Test
+    public void testChurn() {
+        System.out.println("churn");
+        WindowedHeap<int[]> instance = new WindowedHeap<>(WINDOW, () -> _now,
+                (int[] a, int[] b) -> Integer.compare(a[0], b[0]));
+        PriorityQueue<int[]> pq = new PriorityQueue<>((int[] a, int[] b) -> Integer.compare(a[0], b[0]));
+        Random rand = new Random(HEAP_SIZE);
+        for (int i = 0; i < HEAP_SIZE * 32; ++i) {
+            _now = i / 8;
+            int[] element = {rand.nextInt(), (int) _now};
+            instance.add(element, _now);
+            pq.add(element);
+            if ((i & 3) == 0) {
+                pq.removeIf(e -> _now - e[1] >= WINDOW);
+                assertSame(pq.poll(), instance.poll());
+            }
+            assertTrue(instance.size() <= 8 * WINDOW); // bounded by the window
+        }
+        pq.removeIf(e -> _now - e[1] >= WINDOW);
+        assertEquals(pq.size(), instance.size());
+        int count = 0;
+        for (int[] element : instance) {
+            assertTrue(pq.contains(element));
+            ++count;
+        }
+        assertEquals(pq.size(), count);
+    }
+
+}